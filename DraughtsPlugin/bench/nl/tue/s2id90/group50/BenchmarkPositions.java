@@ -0,0 +1,76 @@
+package nl.tue.s2id90.group50;
+
+import java.util.List;
+import java.util.Random;
+import nl.tue.s2id90.draughts.DraughtsState;
+import nl.tue.s2id90.group50.engine.Position;
+import org10x10.dam.game.Move;
+
+/**
+ * The fixed set of positions used by the benchmarks: every fourth position of random games from the starting position,
+ * played with a fixed seed, so every run and every benchmark measures the same positions.
+ *
+ * @author Jeroen, Andreas
+ */
+public final class BenchmarkPositions {
+
+    /** number of positions in the set **/
+    public static final int COUNT = 64;
+    static final long SEED = 2018;
+    static final int INTERVAL = 4; // plies between two positions of a game
+    static final int MAX_PLIES = 120; // a game is stopped after this many plies
+
+    private BenchmarkPositions() {
+    }
+
+    /**
+     * @return the positions as DraughtsStates
+     */
+    public static DraughtsState[] states() {
+        return play(new DraughtsState());
+    }
+
+    /**
+     * @return the positions as bitboards, in the same order as states()
+     */
+    public static Position[] positions() {
+        return positions(states());
+    }
+
+    /**
+     * @return the given states as bitboard positions
+     */
+    public static Position[] positions(DraughtsState[] states) {
+        Position[] positions = new Position[states.length];
+        for (int i = 0; i < states.length; i++) {
+            positions[i] = Position.of(states[i]);
+        }
+        return positions;
+    }
+
+    /**
+     * Plays random games from the given starting state, which is left unchanged.
+     *
+     * @return COUNT states of the games, none of them an end state
+     */
+    static DraughtsState[] play(DraughtsState start) {
+        Random random = new Random(SEED);
+        DraughtsState[] states = new DraughtsState[COUNT];
+        DraughtsState game = start.clone();
+        int ply = 0;
+        for (int i = 0; i < COUNT;) {
+            List<Move> moves = game.getMoves();
+            if (moves.isEmpty() || ply == MAX_PLIES) {
+                game = start.clone();
+                ply = 0;
+                continue;
+            }
+            if (ply > 0 && ply % INTERVAL == 0) {
+                states[i++] = game.clone();
+            }
+            game.doMove(moves.get(random.nextInt(moves.size())));
+            ply++;
+        }
+        return states;
+    }
+}
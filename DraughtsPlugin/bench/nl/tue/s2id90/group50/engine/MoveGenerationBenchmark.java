@@ -0,0 +1,88 @@
+package nl.tue.s2id90.group50.engine;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import nl.tue.s2id90.draughts.DraughtsState;
+import nl.tue.s2id90.group50.BenchmarkPositions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org10x10.dam.game.Move;
+
+/**
+ * Generating the moves of a position and playing and taking back each of them, with DraughtsState and with the
+ * MoveGenerator on a Position. The time is per position of the BenchmarkPositions.
+ *
+ * @author Jeroen, Andreas
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveGenerationBenchmark {
+
+    private DraughtsState[] states;
+    private Position[] positions;
+    private final MoveList moves = new MoveList();
+
+    @Setup
+    public void setup() {
+        states = BenchmarkPositions.states();
+        positions = BenchmarkPositions.positions(states);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkPositions.COUNT)
+    public void getMoves(Blackhole bh) {
+        for (DraughtsState state : states) {
+            bh.consume(state.getMoves());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkPositions.COUNT)
+    public int generate() {
+        int n = 0;
+        for (Position p : positions) {
+            n += MoveGenerator.generate(p, moves);
+        }
+        return n;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkPositions.COUNT)
+    public void getMovesDoUndo(Blackhole bh) {
+        for (DraughtsState state : states) {
+            List<Move> list = state.getMoves();
+            for (Move move : list) {
+                state.doMove(move);
+                bh.consume(state.isWhiteToMove());
+                state.undoMove(move);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkPositions.COUNT)
+    public void generateMakeUnmake(Blackhole bh) {
+        for (Position p : positions) {
+            int n = MoveGenerator.generate(p, moves);
+            for (int i = 0; i < n; i++) {
+                p.make(moves, i);
+                bh.consume(p.hash());
+                p.unmake();
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package nl.tue.s2id90.group50.own_bots;
+
+import java.util.concurrent.TimeUnit;
+import nl.tue.s2id90.group50.BenchmarkPositions;
+import nl.tue.s2id90.group50.engine.Position;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The evaluation functions of the bots that search a Position, per position of the BenchmarkPositions. The bots that
+ * still evaluate a DraughtsState are measured by StateEvaluateBenchmark.
+ *
+ * @author Jeroen, Andreas
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluateBenchmark {
+
+    @Param({"BasicAlphaBeta", "GammaBot", "Fluffles", "ImminentDeath"})
+    public String bot;
+
+    private AlphaBetaPlayer player;
+    private Position[] positions;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        String name = EvaluateBenchmark.class.getPackage().getName() + "." + bot;
+        player = (AlphaBetaPlayer) Class.forName(name).newInstance();
+        positions = BenchmarkPositions.positions();
+        for (Position p : positions) {
+            p.setPieceSquareTable(player.pieceSquareTable()); // as in the search of the player
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkPositions.COUNT)
+    public int evaluate() {
+        int sum = 0;
+        for (Position p : positions) {
+            sum += player.evaluate(p);
+        }
+        return sum;
+    }
+}
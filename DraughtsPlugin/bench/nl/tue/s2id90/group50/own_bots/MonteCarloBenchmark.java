@@ -0,0 +1,81 @@
+package nl.tue.s2id90.group50.own_bots;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import nl.tue.s2id90.draughts.DraughtsState;
+import nl.tue.s2id90.group50.BenchmarkPositions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Iterations per second of the MonteCarloPlayer for every number of threads, with one shared tree and with a tree per
+ * thread. Every invocation searches the next of the BenchmarkPositions for a fixed number of iterations; the positions
+ * are not related, so every search starts with an empty tree.
+ *
+ * @author Jeroen, Andreas
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MonteCarloBenchmark {
+
+    static final int ITERATIONS = 20000;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"tree", "root"})
+    public String parallelism;
+
+    @Param({"false", "true"})
+    public boolean guided;
+
+    private final MonteCarloPlayer player = new MonteCarloPlayer();
+    private DraughtsState[] states;
+    private int next;
+    private PrintStream err;
+
+    @Setup
+    public void setup() {
+        player.setThreads(threads);
+        player.setRootParallel(parallelism.equals("root"));
+        player.setGuidedPlayouts(guided);
+        player.setNodes(ITERATIONS);
+        states = BenchmarkPositions.states();
+        // the report of every move would drown the output of JMH
+        err = System.err;
+        System.setErr(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setErr(err);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITERATIONS)
+    public Object search() {
+        DraughtsState s = states[next];
+        next = (next + 1) % states.length;
+        return player.getMove(s);
+    }
+}
@@ -0,0 +1,132 @@
+package nl.tue.s2id90.group50.own_bots;
+
+import java.util.concurrent.TimeUnit;
+import nl.tue.s2id90.group50.BenchmarkPositions;
+import nl.tue.s2id90.group50.engine.Position;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the evaluation of GammaBot on bitboards (NeighbourhoodEvaluation) with the square by square evaluation it
+ * replaced, which is kept below as the reference. Both evaluate the BenchmarkPositions, and the setup fails when they
+ * do not give identical scores.
+ *
+ * @author Jeroen, Andreas
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NeighbourhoodBenchmark {
+
+    private Position[] positions;
+    private final GammaBot gamma = new GammaBot();
+
+    @Setup
+    public void setup() {
+        positions = BenchmarkPositions.positions();
+        for (Position p : positions) {
+            if (gamma.evaluate2(p) != reference(p)) {
+                throw new IllegalStateException("evaluations differ in\n" + p);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkPositions.COUNT)
+    public int bitboards() {
+        int sum = 0;
+        for (Position p : positions) {
+            sum += gamma.evaluate2(p);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkPositions.COUNT)
+    public int squares() {
+        int sum = 0;
+        for (Position p : positions) {
+            sum += reference(p);
+        }
+        return sum;
+    }
+
+    /**
+     * The evaluation of GammaBot before NeighbourhoodEvaluation: getPiece for every square and every neighbour.
+     */
+    static int reference(Position pos) {
+        int value = 0;
+        int nWhite = 0;
+        int[] w = new int[3], b = new int[3];
+        for (int row = 0; row < 10; row++) {
+            for (int col = (row + 1) % 2; col < 10; col += 2) {
+                int piece = pos.getPiece(row, col);
+                int colour;
+                switch (piece) {
+                    case Position.WHITEPIECE:
+                        value += 10000;
+                        colour = 1;
+                        nWhite++;
+                        break;
+                    case Position.BLACKPIECE:
+                        value -= 10000;
+                        colour = -1;
+                        break;
+                    case Position.WHITEKING:
+                        value += 30000;
+                        nWhite++;
+                        continue;
+                    case Position.BLACKKING:
+                        value -= 30000;
+                        continue;
+                    default:
+                        continue;
+                }
+                int rowValue = colour == 1 ? Math.abs(row - 9) : row;
+                value += Math.ceil(Math.abs(Math.abs(rowValue - 4.5) - 4.5)) * colour;
+                value += Math.ceil(Math.abs(Math.abs(col - 4.5) - 4.5)) * colour;
+                int[] distribution = colour == 1 ? w : b;
+                distribution[col <= 2 ? 0 : col <= 6 ? 1 : 2]++;
+
+                int neighbours = 0;
+                for (int i = -2; i <= 2; i++) {
+                    for (int j = Math.abs(i) % 2 == 0 ? 0 : -1; j <= 1; j += 2) {
+                        if (row + i >= 0 && col + j >= 0 && row + i <= 9 && col + j <= 9 && !(i == 0 && j == 0)
+                                && pos.getPiece(row + i, col + j) == piece) {
+                            neighbours++;
+                        }
+                    }
+                }
+                neighbours *= Math.ceil(Math.exp(rowValue - 4.5));
+                value += neighbours * colour * 2;
+            }
+        }
+        int check = 0;
+        int[] points = {10, 15, 10};
+        for (int i = 0; i < 3; i++) {
+            if (w[i] == Math.ceil(nWhite / 3.0) || w[i] == Math.floor(nWhite / 3.0)) {
+                value += points[i];
+                check++;
+            }
+        }
+        if (check == 3) {
+            value += 20;
+        }
+        value += w[0] > b[0] ? 20 : -20;
+        value += w[1] > b[1] ? 25 : -25;
+        value += w[2] > b[2] ? 20 : -20;
+        return value;
+    }
+}
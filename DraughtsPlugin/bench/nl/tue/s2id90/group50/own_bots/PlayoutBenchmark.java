@@ -0,0 +1,101 @@
+package nl.tue.s2id90.group50.own_bots;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import nl.tue.s2id90.draughts.DraughtsState;
+import nl.tue.s2id90.group50.BenchmarkPositions;
+import nl.tue.s2id90.group50.engine.Playouts;
+import nl.tue.s2id90.group50.engine.Position;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org10x10.dam.game.Move;
+
+/**
+ * The playouts of RandomizedAlphaBeta per leaf, for every position of the BenchmarkPositions: the Playouts on
+ * bitboards with the given number of threads, and the playouts on cloned DraughtsStates with shuffled move lists that
+ * they replaced, which are kept below as the reference.
+ *
+ * @author Jeroen, Andreas
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayoutBenchmark {
+
+    /** length of a playout in plies, as in RandomizedAlphaBeta **/
+    static final int LENGTH = 3;
+
+    @Param({"10", "100", "1000"})
+    public int tries;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private DraughtsState[] states;
+    private Position[] positions;
+    private Playouts playouts;
+    private final RandomizedAlphaBeta player = new RandomizedAlphaBeta();
+
+    @Setup
+    public void setup() {
+        states = BenchmarkPositions.states();
+        positions = BenchmarkPositions.positions(states);
+        playouts = new Playouts(threads, 2018, RandomizedAlphaBeta::evaluate);
+    }
+
+    @TearDown
+    public void tearDown() {
+        playouts.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkPositions.COUNT)
+    public long playouts() {
+        long sum = 0;
+        for (Position p : positions) {
+            sum += playouts.run(p, tries, LENGTH) / tries;
+        }
+        return sum;
+    }
+
+    /**
+     * The playouts of RandomizedAlphaBeta before Playouts; they always run on one thread.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkPositions.COUNT)
+    public long reference() {
+        long sum = 0;
+        for (DraughtsState s : states) {
+            int value = 0;
+            for (int i = 0; i < tries; i++) {
+                DraughtsState state = s.clone();
+                for (int ply = 0; ply < LENGTH; ply++) {
+                    List<Move> moves = state.getMoves();
+                    if (moves.isEmpty()) {
+                        break;
+                    }
+                    Collections.shuffle(moves);
+                    state.doMove(moves.get(0));
+                }
+                value += player.evaluate(state);
+            }
+            sum += value / tries;
+        }
+        return sum;
+    }
+}
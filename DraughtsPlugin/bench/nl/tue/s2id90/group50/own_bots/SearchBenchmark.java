@@ -0,0 +1,80 @@
+package nl.tue.s2id90.group50.own_bots;
+
+import static java.lang.Integer.MAX_VALUE;
+import static java.lang.Integer.MIN_VALUE;
+import java.util.concurrent.TimeUnit;
+import nl.tue.s2id90.group50.AIStoppedException;
+import nl.tue.s2id90.group50.BenchmarkPositions;
+import nl.tue.s2id90.group50.engine.Position;
+import nl.tue.s2id90.group50.engine.TranspositionTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Fixed depth searches of the bots on the first POSITIONS of the BenchmarkPositions, with the search options of the
+ * bot. Every position is searched by a new Search with an empty transposition table, so the result does not depend
+ * on what earlier invocations left behind. The time is per position.
+ *
+ * @author Jeroen, Andreas
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    static final int POSITIONS = 8;
+    static final int TT_MEGABYTES = 4;
+
+    @Param({"BasicAlphaBeta", "GammaBot", "Fluffles"})
+    public String bot;
+
+    @Param({"6"})
+    public int depth;
+
+    private AlphaBetaPlayer player;
+    private final Position[] positions = new Position[POSITIONS];
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        String name = SearchBenchmark.class.getPackage().getName() + "." + bot;
+        player = (AlphaBetaPlayer) Class.forName(name).newInstance();
+        player.tt = player.useTranspositionTable() ? new TranspositionTable(TT_MEGABYTES) : null;
+        Position[] all = BenchmarkPositions.positions();
+        for (int i = 0; i < POSITIONS; i++) {
+            positions[i] = all[i * (all.length / POSITIONS)].setPieceSquareTable(player.pieceSquareTable());
+        }
+    }
+
+    /**
+     * @return the number of nodes visited
+     */
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public long search() throws AIStoppedException {
+        long nodes = 0;
+        for (Position p : positions) {
+            if (player.tt != null) {
+                player.tt.clear();
+            }
+            Search search = new Search(player);
+            search.reset(p);
+            search.newIteration();
+            search.alphaBeta(0, MIN_VALUE, MAX_VALUE, depth);
+            nodes += search.visitedStates;
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,70 @@
+package nl.tue.s2id90.group50.own_bots;
+
+import java.util.concurrent.TimeUnit;
+import nl.tue.s2id90.draughts.DraughtsState;
+import nl.tue.s2id90.group50.BenchmarkPositions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The evaluation functions of the bots that search a DraughtsState, per position of the BenchmarkPositions.
+ *
+ * @author Jeroen, Andreas
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StateEvaluateBenchmark {
+
+    private DraughtsState[] states;
+    private final NewAndImproved newAndImproved = new NewAndImproved();
+    private final BadAss badAss = new BadAss();
+    private final RandomizedAlphaBeta randomized = new RandomizedAlphaBeta();
+
+    @Setup
+    public void setup() {
+        states = BenchmarkPositions.states();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkPositions.COUNT)
+    public int newAndImproved() {
+        int sum = 0;
+        for (DraughtsState s : states) {
+            sum += newAndImproved.evaluate(s);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkPositions.COUNT)
+    public int badAss() {
+        int sum = 0;
+        for (DraughtsState s : states) {
+            sum += badAss.evaluate(s);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkPositions.COUNT)
+    public int randomizedAlphaBeta() {
+        int sum = 0;
+        for (DraughtsState s : states) {
+            sum += randomized.evaluate(s);
+        }
+        return sum;
+    }
+}
@@ -1,7 +1,16 @@
 package nl.tue.s2id90.group50;
 
 /**
+ * Thrown to unwind a search that has been stopped. The exception carries no stack trace, so a search can throw the
+ * shared INSTANCE from any depth without allocating or walking the stack.
  *
  * @author huub
  */
-public class AIStoppedException extends Exception { }
+public class AIStoppedException extends Exception {
+
+    public static final AIStoppedException INSTANCE = new AIStoppedException();
+
+    public AIStoppedException() {
+        super(null, null, false, false);
+    }
+}
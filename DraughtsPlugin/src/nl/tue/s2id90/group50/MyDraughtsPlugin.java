@@ -6,6 +6,7 @@ import nl.tue.s2id90.group50.own_bots.ImminentDeath;
 import nl.tue.s2id90.group50.own_bots.RandomizedAlphaBeta;
 import nl.tue.s2id90.group50.own_bots.GammaBot;
 import nl.tue.s2id90.group50.own_bots.Fluffles;
+import nl.tue.s2id90.group50.own_bots.MonteCarloPlayer;
 import nl.tue.s2id90.group50.own_bots.NewAndImproved;
 import net.xeoh.plugins.base.annotations.PluginImplementation;
 import nl.tue.s2id90.draughts.DraughtsPlayerProvider;
@@ -31,7 +32,8 @@ public class MyDraughtsPlugin extends DraughtsPlayerProvider implements Draughts
         super(new BasicAlphaBeta(),
                 new RandomizedAlphaBeta(),
                 new GammaBot(),
-                new Fluffles()
+                new Fluffles(),
+                new MonteCarloPlayer()
         );
     }
 }
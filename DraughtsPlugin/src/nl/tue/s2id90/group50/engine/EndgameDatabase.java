@@ -0,0 +1,380 @@
+package nl.tue.s2id90.group50.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Probes the endgame databases of the EndgameGenerator during a search. The databases stay on disk: every file is
+ * memory mapped, so the operating system loads and drops its pages, and only the blocks that are probed are
+ * decompressed, into a cache of the blocks used last.
+ *
+ * <p>
+ * A file holds the values of one material, first those with white to move and then those with black to move, cut
+ * into blocks of BLOCK values that are compressed one by one with Deflater. It starts with a header:
+ * </p>
+ * <pre>
+ * int MAGIC, int BLOCK, long size (indices per side to move), int blocks, long[blocks + 1] offsets of the blocks
+ * </pre>
+ * <p>
+ * The values of invalid indices are written as the value before them, which compresses better; they are never
+ * probed.
+ * </p>
+ *
+ * <p>
+ * The cache is split into STRIPES independent parts by the hash of the block, each with its own lock, its own
+ * least recently used order and its own Inflater, so threads that probe different blocks rarely wait for each other.
+ * Its blocks are allocated once and reused, and the order is kept in arrays of slot numbers, so a probe does not
+ * allocate any objects.
+ * </p>
+ *
+ * @author Jeroen, Andreas
+ */
+public final class EndgameDatabase {
+
+    /** the first int of a file, "EGDB" **/
+    public static final int MAGIC = 0x45474442;
+    /** number of values of a block **/
+    public static final int BLOCK = 4096;
+    /** extension of the files **/
+    public static final String SUFFIX = ".egdb";
+    /** result of probe when there is no database for the material of the position **/
+    public static final int MISSING = Integer.MIN_VALUE;
+    /** number of independent parts of the cache **/
+    static final int STRIPES = 16;
+
+    private static final int HEADER = 4 + 4 + 8 + 4; // bytes before the offsets
+    private static final int RADIX = EndgameIndex.MAX_GROUP + 1;
+
+    /**
+     * The mapped file of one material.
+     */
+    private static final class Table {
+
+        final int id;
+        final EndgameIndex index;
+        final MappedByteBuffer buffer;
+        final long size;
+        final int blocks;
+
+        Table(int id, File file) throws IOException {
+            this.id = id;
+            String name = file.getName();
+            index = EndgameIndex.parse(name.substring(0, name.length() - SUFFIX.length()));
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new IOException(file + " is too large to map");
+                }
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != BLOCK || buffer.getLong(8) != index.size()) {
+                throw new IOException(file + " is not an endgame database of " + index);
+            }
+            size = index.size();
+            blocks = buffer.getInt(16);
+        }
+
+        long offset(int block) {
+            return buffer.getLong(HEADER + 8 * block);
+        }
+    }
+
+    /**
+     * A part of the cache: a hash table from block to slot and a list of the slots from the most to the least recently
+     * used one.
+     */
+    private static final class Stripe {
+
+        final long[] keys; // the table id and block of every slot
+        final byte[][] blocks;
+        final int[] newer, older; // the list of slots in order of use
+        int newest = -1, oldest = -1;
+        int used; // slots in use
+        final int[] buckets; // first slot of every bucket of the hash table, -1 if none
+        final int[] chain; // next slot of the same bucket
+        final Inflater inflater = new Inflater();
+        final byte[] input; // compressed block
+        long misses; // blocks decompressed
+
+        Stripe(int capacity, int maxCompressed) {
+            keys = new long[capacity];
+            blocks = new byte[capacity][];
+            newer = new int[capacity];
+            older = new int[capacity];
+            chain = new int[capacity];
+            buckets = new int[Integer.highestOneBit(capacity) * 2];
+            Arrays.fill(buckets, -1);
+            input = new byte[maxCompressed];
+        }
+
+        /**
+         * @return value i of the given block of table
+         */
+        synchronized byte value(Table table, int block, int i) {
+            long key = ((long) table.id << 32) | block;
+            int bucket = bucket(key);
+            int slot = buckets[bucket];
+            while (slot >= 0 && keys[slot] != key) {
+                slot = chain[slot];
+            }
+            if (slot >= 0) {
+                unlink(slot);
+            } else {
+                slot = load(table, block, key, bucket);
+            }
+            link(slot);
+            return blocks[slot][i];
+        }
+
+        /**
+         * Decompresses a block into a free slot, or into the least recently used one when the stripe is full.
+         *
+         * @return the slot, which is not in the list yet
+         */
+        private int load(Table table, int block, long key, int bucket) {
+            misses++;
+            int slot;
+            if (used < keys.length) {
+                slot = used++;
+                blocks[slot] = new byte[BLOCK];
+            } else {
+                slot = oldest;
+                unlink(slot);
+                int b = bucket(keys[slot]);
+                if (buckets[b] == slot) {
+                    buckets[b] = chain[slot];
+                } else {
+                    int s = buckets[b];
+                    while (chain[s] != slot) {
+                        s = chain[s];
+                    }
+                    chain[s] = chain[slot];
+                }
+            }
+            long from = table.offset(block);
+            int length = (int) (table.offset(block + 1) - from);
+            for (int i = 0; i < length; i++) {
+                input[i] = table.buffer.get((int) from + i);
+            }
+            inflater.reset();
+            inflater.setInput(input, 0, length);
+            try {
+                inflater.inflate(blocks[slot]);
+            } catch (DataFormatException ex) {
+                throw new IllegalStateException("block " + block + " of " + table.index + " is corrupt", ex);
+            }
+            keys[slot] = key;
+            chain[slot] = buckets[bucket];
+            buckets[bucket] = slot;
+            return slot;
+        }
+
+        private int bucket(long key) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & (buckets.length - 1);
+        }
+
+        private void unlink(int slot) {
+            if (newer[slot] >= 0) {
+                older[newer[slot]] = older[slot];
+            } else {
+                newest = older[slot];
+            }
+            if (older[slot] >= 0) {
+                newer[older[slot]] = newer[slot];
+            } else {
+                oldest = newer[slot];
+            }
+        }
+
+        private void link(int slot) {
+            newer[slot] = -1;
+            older[slot] = newest;
+            if (newest >= 0) {
+                newer[newest] = slot;
+            } else {
+                oldest = slot;
+            }
+            newest = slot;
+        }
+    }
+
+    private final File dir;
+    private final int megabytes;
+    private final Table[] tables = new Table[RADIX * RADIX * RADIX * RADIX]; // by material, see key
+    private final int maxPieces;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    // counters since the last reset
+    private final LongAdder probes = new LongAdder(), hits = new LongAdder(), nanos = new LongAdder();
+    private long missesAtReset;
+
+    /**
+     * Maps every database in dir.
+     *
+     * @param megabytes size of the cache of decompressed blocks
+     * @throws IOException when dir has no databases or one of them can not be read
+     */
+    public EndgameDatabase(File dir, int megabytes) throws IOException {
+        this.dir = dir;
+        this.megabytes = megabytes;
+        File[] files = dir.listFiles((d, name) -> name.endsWith(SUFFIX));
+        if (files == null || files.length == 0) {
+            throw new IOException("no endgame databases in " + dir);
+        }
+        int pieces = 0, maxCompressed = 0;
+        for (int id = 0; id < files.length; id++) {
+            Table table = new Table(id, files[id]);
+            EndgameIndex index = table.index;
+            tables[key(index.whiteMen, index.whiteKings, index.blackMen, index.blackKings)] = table;
+            pieces = Math.max(pieces, index.pieces());
+            for (int b = 0; b < table.blocks; b++) {
+                maxCompressed = Math.max(maxCompressed, (int) (table.offset(b + 1) - table.offset(b)));
+            }
+        }
+        maxPieces = pieces;
+        int capacity = Math.max(1, (int) ((long) megabytes * 1024 * 1024 / BLOCK / STRIPES));
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(capacity, maxCompressed);
+        }
+    }
+
+    private static int key(int wm, int wk, int bm, int bk) {
+        return ((wm * RADIX + wk) * RADIX + bm) * RADIX + bk;
+    }
+
+    public File directory() {
+        return dir;
+    }
+
+    public int megabytes() {
+        return megabytes;
+    }
+
+    /**
+     * @return the most pieces of the databases; positions with more pieces are never found
+     */
+    public int maxPieces() {
+        return maxPieces;
+    }
+
+    /**
+     * @return the value of the position for the side to move, see EndgameGenerator, or MISSING if there is no
+     * database for its material
+     */
+    public int probe(Position pos) {
+        long white = pos.white, black = pos.black, kings = pos.kings;
+        if (Long.bitCount(white | black) > maxPieces) {
+            return MISSING;
+        }
+        long start = System.nanoTime();
+        probes.increment();
+        int value = MISSING;
+        if ((pos.whiteToMove ? white : black) == 0) {
+            value = EndgameGenerator.loss(0);
+        } else {
+            int wk = Long.bitCount(white & kings), bk = Long.bitCount(black & kings);
+            Table table = tables[key(Long.bitCount(white) - wk, wk, Long.bitCount(black) - bk, bk)];
+            if (table != null) {
+                long i = table.index.index(white, black, kings) + (pos.whiteToMove ? 0 : table.size);
+                int block = (int) (i / BLOCK);
+                Stripe stripe = stripes[(int) ((block * 0x9E3779B9L + table.id) >>> 16) & (STRIPES - 1)];
+                value = stripe.value(table, block, (int) (i % BLOCK));
+            }
+        }
+        if (value != MISSING) {
+            hits.increment();
+        }
+        nanos.add(System.nanoTime() - start);
+        return value;
+    }
+
+    /**
+     * @return the number of probes of positions with at most maxPieces pieces since the last reset
+     */
+    public long probes() {
+        return probes.sum();
+    }
+
+    /**
+     * @return the number of probes that found the position since the last reset
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of blocks decompressed since the last reset
+     */
+    public long cacheMisses() {
+        long misses = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                misses += stripe.misses;
+            }
+        }
+        return misses - missesAtReset;
+    }
+
+    /**
+     * @return the total time of the probes since the last reset, in nanoseconds
+     */
+    public long probeNanos() {
+        return nanos.sum();
+    }
+
+    public void resetCounters() {
+        probes.reset();
+        hits.reset();
+        nanos.reset();
+        missesAtReset += cacheMisses();
+    }
+
+    /**
+     * Writes the values of a material, see EndgameGenerator, to file in the compressed format.
+     */
+    public static void write(File file, byte[] whiteToMove, byte[] blackToMove) throws IOException {
+        long size = whiteToMove.length;
+        int blocks = (int) ((2 * size + BLOCK - 1) / BLOCK);
+        long[] offsets = new long[blocks + 1];
+        byte[] block = new byte[BLOCK];
+        byte[] output = new byte[2 * BLOCK + 64];
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(0);
+            offsets[0] = HEADER + 8L * (blocks + 1);
+            raf.seek(offsets[0]);
+            byte previous = EndgameGenerator.DRAW;
+            for (int b = 0; b < blocks; b++) {
+                int length = (int) Math.min(BLOCK, 2 * size - (long) b * BLOCK);
+                for (int i = 0; i < length; i++) {
+                    long j = (long) b * BLOCK + i;
+                    byte value = j < size ? whiteToMove[(int) j] : blackToMove[(int) (j - size)];
+                    block[i] = previous = value == EndgameGenerator.INVALID ? previous : value;
+                }
+                deflater.reset();
+                deflater.setInput(block, 0, length);
+                deflater.finish();
+                int n = deflater.deflate(output);
+                raf.write(output, 0, n);
+                offsets[b + 1] = offsets[b] + n;
+            }
+            ByteBuffer header = ByteBuffer.allocate((int) offsets[0]);
+            header.putInt(MAGIC).putInt(BLOCK).putLong(size).putInt(blocks);
+            for (long offset : offsets) {
+                header.putLong(offset);
+            }
+            raf.seek(0);
+            raf.write(header.array());
+        } finally {
+            deflater.end();
+        }
+    }
+}
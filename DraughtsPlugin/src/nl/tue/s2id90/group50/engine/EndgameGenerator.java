@@ -0,0 +1,431 @@
+package nl.tue.s2id90.group50.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Generates endgame databases by retrograde analysis: for every material of at most a given number of pieces, the
+ * win, loss or draw of every position and its distance to conversion, the number of plies to the capture or
+ * promotion that leads into a won endgame of other material, or to the end of the game. The winner takes the shortest
+ * way, the loser the longest.
+ *
+ * <p>
+ * Every material is a slice, with a byte per position and side to move at the index of its EndgameIndex. The slices
+ * are generated in the order of their number of pieces and then of their number of men, so that every capture or
+ * promotion leads into a slice that is already solved. A slice is solved in passes:
+ * </p>
+ * <ul>
+ * <li>pass 0 resolves the positions without moves and those that are decided by their conversions alone,</li>
+ * <li>pass k takes back every move to the positions at distance k - 1, and resolves those of the positions found that
+ * are still open from their children.</li>
+ * </ul>
+ * <p>
+ * When a pass resolves nothing, the open positions are draws. Within a pass a child only counts when its distance is
+ * below k, so threads that resolve positions at distance k at the same time never depend on each other: the outcome
+ * does not depend on the order in which they run or the number of threads. Every pass is a fork/join task over ranges
+ * of indices of the slice.
+ * </p>
+ *
+ * <p>
+ * The rules of the game on repetition and on long endgames are not modelled; a position that can be forced to a win in
+ * any number of moves counts as won.
+ * </p>
+ *
+ * <p>
+ * Run it as a program, see main, with for example "4 -threads 4 -verify".
+ * </p>
+ *
+ * @author Jeroen, Andreas
+ */
+public final class EndgameGenerator {
+
+    /** value of a draw, and of a position that is not resolved yet **/
+    public static final byte DRAW = 0;
+    /** value of an index of which the placement is invalid **/
+    public static final byte INVALID = Byte.MIN_VALUE;
+    /** the longest distance to conversion that can be stored **/
+    public static final int MAX_DISTANCE = 126;
+    /** number of indices of a leaf task **/
+    static final int GRAIN = 1 << 12;
+
+    /**
+     * @return the value of a win in the given number of plies
+     */
+    public static byte win(int distance) {
+        return (byte) distance;
+    }
+
+    /**
+     * @return the value of a loss in the given number of plies
+     */
+    public static byte loss(int distance) {
+        return (byte) (-distance - 1);
+    }
+
+    public static boolean isWin(byte value) {
+        return value > 0;
+    }
+
+    public static boolean isLoss(byte value) {
+        return value < 0 && value != INVALID;
+    }
+
+    /**
+     * @return the distance to conversion of a win or a loss
+     */
+    public static int distance(byte value) {
+        return value > 0 ? value : -value - 1;
+    }
+
+    /**
+     * The values of the positions of one material.
+     */
+    static final class Slice {
+
+        final EndgameIndex index;
+        final byte[][] values; // by side to move, white first
+        int passes; // number of passes that resolved a position
+        long millis; // time of the generation
+
+        Slice(EndgameIndex index) {
+            if (index.size() > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("slice " + index + " does not fit in an array");
+            }
+            this.index = index;
+            values = new byte[2][(int) index.size()];
+        }
+    }
+
+    /**
+     * A pass over a range of indices of a slice.
+     */
+    private final class Pass extends RecursiveTask<Long> {
+
+        private final Slice slice;
+        private final int pass; // -1 to verify the values
+        private final int from, to;
+
+        Pass(Slice slice, int pass, int from, int to) {
+            this.slice = slice;
+            this.pass = pass;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * @return the number of positions resolved, or the number of wrong values when verifying
+         */
+        @Override
+        protected Long compute() {
+            if (to - from > GRAIN) {
+                int middle = (from + to) >>> 1;
+                Pass left = new Pass(slice, pass, from, middle);
+                left.fork();
+                long right = new Pass(slice, pass, middle, to).compute();
+                return right + left.join();
+            }
+            Position pos = new Position(), before = new Position();
+            MoveList moves = new MoveList();
+            long count = 0;
+            for (int side = 0; side < 2; side++) {
+                byte[] values = slice.values[side];
+                for (int i = from; i < to; i++) {
+                    if (pass == 0) {
+                        byte value = slice.index.decode(i, side == 0, pos)
+                                ? evaluate(pos, moves, slice, 0) : INVALID;
+                        if (value != DRAW) {
+                            values[i] = value;
+                            count++;
+                        }
+                    } else if (pass > 0) {
+                        byte value = values[i];
+                        if (value != DRAW && value != INVALID && distance(value) == pass - 1) {
+                            slice.index.decode(i, side == 0, pos);
+                            count += retract(pos, before, moves, slice, pass);
+                        }
+                    } else if (slice.index.decode(i, side == 0, pos)
+                            && evaluate(pos, moves, slice, MAX_DISTANCE + 1) != values[i]) {
+                        count++;
+                    }
+                }
+            }
+            return count;
+        }
+    }
+
+    private final int maxPieces;
+    private final ForkJoinPool pool;
+    private final Slice[] slices; // by material, see key
+    private final List<Slice> order = new ArrayList<>(); // the slices in the order of generation
+
+    /**
+     * @param maxPieces the most pieces of the positions of the databases
+     * @param threads number of threads of the passes
+     */
+    public EndgameGenerator(int maxPieces, int threads) {
+        this.maxPieces = maxPieces;
+        pool = new ForkJoinPool(Math.max(1, threads));
+        int n = maxPieces + 1;
+        slices = new Slice[n * n * n * n];
+        for (int pieces = 2; pieces <= maxPieces; pieces++) {
+            for (int men = 0; men <= pieces; men++) {
+                for (int wm = 0; wm <= men; wm++) {
+                    for (int wk = 0; wk <= pieces - men; wk++) {
+                        int bm = men - wm, bk = pieces - men - wk;
+                        if (wm + wk > 0 && bm + bk > 0) {
+                            Slice slice = new Slice(new EndgameIndex(wm, wk, bm, bk));
+                            slices[key(wm, wk, bm, bk)] = slice;
+                            order.add(slice);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private int key(int wm, int wk, int bm, int bk) {
+        int n = maxPieces + 1;
+        return ((wm * n + wk) * n + bm) * n + bk;
+    }
+
+    /**
+     * @return the slices in the order in which they are generated
+     */
+    List<Slice> slices() {
+        return order;
+    }
+
+    /**
+     * Generates all slices.
+     */
+    public void generate() {
+        for (Slice slice : order) {
+            generate(slice);
+        }
+    }
+
+    private void generate(Slice slice) {
+        long time = System.currentTimeMillis();
+        int size = slice.values[0].length;
+        pool.invoke(new Pass(slice, 0, 0, size));
+        for (int pass = 1;; pass++) {
+            long resolved = pool.invoke(new Pass(slice, pass, 0, size));
+            if (resolved > 0) {
+                slice.passes = pass;
+            } else if (pass > 1) {
+                break; // there is nothing at distance pass, so nothing further away either
+            }
+        }
+        slice.millis = System.currentTimeMillis() - time;
+    }
+
+    /**
+     * Checks every value of a generated slice against the values of its children.
+     *
+     * @return the number of wrong values
+     */
+    long verify(Slice slice) {
+        return pool.invoke(new Pass(slice, -1, 0, slice.values[0].length));
+    }
+
+    /**
+     * @return the value of the position for the side to move, which must have at most maxPieces pieces
+     */
+    public byte probe(Position pos) {
+        long own = pos.whiteToMove ? pos.white : pos.black;
+        if (own == 0) {
+            return loss(0);
+        }
+        long kings = pos.kings;
+        int wk = Long.bitCount(pos.white & kings), bk = Long.bitCount(pos.black & kings);
+        int wm = Long.bitCount(pos.white) - wk, bm = Long.bitCount(pos.black) - bk;
+        Slice slice = slices[key(wm, wk, bm, bk)];
+        return slice.values[pos.whiteToMove ? 0 : 1][(int) slice.index.index(pos)];
+    }
+
+    /**
+     * Resolves the value of the position from its children. A child in the same slice counts when its distance is
+     * below pass; a child after a capture or promotion always counts, at distance 0.
+     *
+     * @return the value, or DRAW when the position cannot be resolved yet
+     */
+    private byte evaluate(Position pos, MoveList moves, Slice slice, int pass) {
+        int n = MoveGenerator.generate(pos, moves);
+        if (n == 0) {
+            return loss(0);
+        }
+        int win = Integer.MAX_VALUE, loss = 0; // shortest win and longest loss
+        boolean lost = true; // whether all children are known wins for the opponent
+        for (int i = 0; i < n; i++) {
+            pos.make(moves, i);
+            byte value;
+            int distance;
+            if (slice.index.matches(pos.white, pos.black, pos.kings)) {
+                value = slice.values[pos.whiteToMove ? 0 : 1][(int) slice.index.index(pos)];
+                distance = distance(value);
+                if (distance >= pass) {
+                    value = DRAW;
+                }
+            } else {
+                value = probe(pos);
+                distance = 0;
+            }
+            pos.unmake();
+            if (isLoss(value)) {
+                win = Math.min(win, distance + 1);
+            } else if (isWin(value)) {
+                loss = Math.max(loss, distance + 1);
+            } else {
+                lost = false;
+            }
+        }
+        if (win != Integer.MAX_VALUE) {
+            return win(check(win));
+        }
+        return lost ? loss(check(loss)) : DRAW;
+    }
+
+    private static int check(int distance) {
+        if (distance > MAX_DISTANCE) {
+            throw new IllegalStateException("distance to conversion above " + MAX_DISTANCE);
+        }
+        return distance;
+    }
+
+    /**
+     * Takes back every move of the side that is not to move in pos that stays in the slice, and resolves those of the
+     * positions before the move that are still open.
+     *
+     * @param before is set to the positions before the moves
+     * @return the number of positions resolved
+     */
+    private long retract(Position pos, Position before, MoveList moves, Slice slice, int pass) {
+        boolean white = !pos.whiteToMove; // the side that moved
+        long white0 = pos.white, black0 = pos.black, kings0 = pos.kings;
+        long own = white ? white0 : black0;
+        long empty = ~(white0 | black0) & Position.BOARD;
+        byte[] values = slice.values[white ? 0 : 1];
+        long count = 0;
+        for (long pieces = own; pieces != 0; pieces &= pieces - 1) {
+            int to = Long.numberOfTrailingZeros(pieces);
+            boolean king = (kings0 & (1L << to)) != 0;
+            for (int d = 0; d < 4; d++) {
+                // a man moves forward, so it came from behind
+                if (!king && (white ? d < Position.DOWN_LEFT : d >= Position.DOWN_LEFT)) {
+                    continue;
+                }
+                for (int from = Position.NEIGHBOUR[d][to]; from >= 0 && (empty & (1L << from)) != 0;
+                        from = king ? Position.NEIGHBOUR[d][from] : -1) {
+                    long move = (1L << from) | (1L << to);
+                    long w = white ? white0 ^ move : white0;
+                    long b = white ? black0 : black0 ^ move;
+                    long k = king ? kings0 ^ move : kings0;
+                    int i = (int) slice.index.index(w, b, k);
+                    if (values[i] == DRAW) {
+                        byte value = evaluate(before.set(w, b, k, white), moves, slice, pass);
+                        if (value != DRAW) {
+                            values[i] = value;
+                            count++;
+                        }
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Writes every slice to dir, in the compressed format of the EndgameDatabase.
+     */
+    public void write(File dir) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("cannot create " + dir);
+        }
+        for (Slice slice : order) {
+            EndgameDatabase.write(new File(dir, slice.index.name() + EndgameDatabase.SUFFIX), slice.values[0],
+                    slice.values[1]);
+        }
+    }
+
+    /**
+     * Stops the threads of the pool.
+     */
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Generates the databases from the command line:
+     * <pre>
+     * EndgameGenerator [pieces] [-dir DIR] [-threads N] [-verify]
+     * </pre>
+     * Generates all slices of at most the given number of pieces (default 4) and writes them to DIR (default
+     * endgame). For every slice it prints the wins, losses and draws for the side to move and the longest distance to
+     * conversion; -verify also checks every value against its children.
+     */
+    public static void main(String[] args) throws IOException {
+        int pieces = 4, threads = Runtime.getRuntime().availableProcessors();
+        String dir = "endgame";
+        boolean verify = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-dir":
+                    dir = args[++i];
+                    break;
+                case "-threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "-verify":
+                    verify = true;
+                    break;
+                default:
+                    pieces = Integer.parseInt(args[i]);
+            }
+        }
+
+        EndgameGenerator generator = new EndgameGenerator(pieces, threads);
+        try {
+            long time = System.currentTimeMillis();
+            for (Slice slice : generator.slices()) {
+                generator.generate(slice);
+                report(slice);
+                if (verify) {
+                    long wrong = generator.verify(slice);
+                    if (wrong > 0) {
+                        System.out.println(wrong + " wrong values in " + slice.index);
+                    }
+                }
+            }
+            System.out.format("%d slices in %d ms with %d threads%n", generator.slices().size(),
+                    System.currentTimeMillis() - time, threads);
+            generator.write(new File(dir));
+        } finally {
+            generator.shutdown();
+        }
+    }
+
+    private static void report(Slice slice) {
+        long wins = 0, losses = 0, draws = 0;
+        int longest = 0;
+        for (byte[] values : slice.values) {
+            for (byte value : values) {
+                if (isWin(value)) {
+                    wins++;
+                } else if (isLoss(value)) {
+                    losses++;
+                } else if (value == DRAW) {
+                    draws++;
+                } else {
+                    continue;
+                }
+                longest = Math.max(longest, distance(value));
+            }
+        }
+        System.out.format("%s: %11d positions %11d wins %11d losses %11d draws, longest %3d, %3d passes %7d ms%n",
+                slice.index, wins + losses + draws, wins, losses, draws, longest, slice.passes, slice.millis);
+    }
+}
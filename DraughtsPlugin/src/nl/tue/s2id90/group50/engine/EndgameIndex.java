@@ -0,0 +1,215 @@
+package nl.tue.s2id90.group50.engine;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A perfect hash of the placements of a fixed material on the 50 squares: every placement of the given numbers of
+ * white and black men and kings gets an index between 0 and size, and every index can be turned back into its
+ * placement. The side to move is not part of the index; an endgame database keeps a table per side.
+ *
+ * <p>
+ * Every group of pieces is ranked with the combinatorial number system: k pieces on the squares r1 &lt; r2 &lt; ...
+ * &lt; rk of n squares get the rank C(r1, 1) + C(r2, 2) + ... + C(rk, k), which numbers the C(n, k) placements of the
+ * group without gaps. Men never stand on their promotion row, so white men are ranked on squares 5..49 and black men on
+ * squares 0..44. The white kings are ranked on the squares the men leave free, the black kings on the squares the
+ * men and the white kings leave free, so the kings never overlap. The index is
+ * </p>
+ * <pre>
+ * ((whiteMen * BM + blackMen) * WK + whiteKings) * BK + blackKings
+ * </pre>
+ * <p>
+ * where BM, WK and BK are the numbers of placements of the black men, white kings and black kings. The white and black
+ * men are ranked independently, so some indices put a white and a black man on the same square; decode reports those
+ * as invalid.
+ * </p>
+ *
+ * @author Jeroen, Andreas
+ */
+public final class EndgameIndex {
+
+    /** number of squares a man can stand on **/
+    public static final int MAN_SQUARES = Position.SQUARES - 5;
+    /** the most pieces of one kind that can be indexed **/
+    public static final int MAX_GROUP = 12;
+
+    private static final Pattern NAME = Pattern.compile("wm(\\d+)wk(\\d+)bm(\\d+)bk(\\d+)");
+
+    /** BINOMIAL[n][k] = n over k **/
+    private static final long[][] BINOMIAL = new long[Position.SQUARES + 1][MAX_GROUP + 1];
+
+    static {
+        for (int n = 0; n <= Position.SQUARES; n++) {
+            BINOMIAL[n][0] = 1;
+            for (int k = 1; k <= MAX_GROUP; k++) {
+                BINOMIAL[n][k] = n == 0 ? 0 : BINOMIAL[n - 1][k - 1] + BINOMIAL[n - 1][k];
+            }
+        }
+    }
+
+    public final int whiteMen, whiteKings, blackMen, blackKings;
+    // number of placements of every group
+    private final long whiteMenCount, blackMenCount, whiteKingsCount, blackKingsCount;
+    private final long size;
+
+    public EndgameIndex(int whiteMen, int whiteKings, int blackMen, int blackKings) {
+        if (Math.min(Math.min(whiteMen, whiteKings), Math.min(blackMen, blackKings)) < 0
+                || Math.max(Math.max(whiteMen, whiteKings), Math.max(blackMen, blackKings)) > MAX_GROUP
+                || whiteMen + whiteKings + blackMen + blackKings > Position.SQUARES) {
+            throw new IllegalArgumentException("no index for " + name(whiteMen, whiteKings, blackMen, blackKings));
+        }
+        this.whiteMen = whiteMen;
+        this.whiteKings = whiteKings;
+        this.blackMen = blackMen;
+        this.blackKings = blackKings;
+        whiteMenCount = BINOMIAL[MAN_SQUARES][whiteMen];
+        blackMenCount = BINOMIAL[MAN_SQUARES][blackMen];
+        whiteKingsCount = BINOMIAL[Position.SQUARES - whiteMen - blackMen][whiteKings];
+        blackKingsCount = BINOMIAL[Position.SQUARES - whiteMen - blackMen - whiteKings][blackKings];
+        size = whiteMenCount * blackMenCount * whiteKingsCount * blackKingsCount;
+    }
+
+    /**
+     * @return the index of the material of the given pieces
+     */
+    public static EndgameIndex of(long white, long black, long kings) {
+        return new EndgameIndex(Long.bitCount(white & ~kings), Long.bitCount(white & kings),
+                Long.bitCount(black & ~kings), Long.bitCount(black & kings));
+    }
+
+    /**
+     * @param name the name of a material, see name()
+     * @return its index
+     */
+    public static EndgameIndex parse(String name) {
+        Matcher m = NAME.matcher(name);
+        if (!m.matches()) {
+            throw new IllegalArgumentException("not a material: " + name);
+        }
+        return new EndgameIndex(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)),
+                Integer.parseInt(m.group(3)), Integer.parseInt(m.group(4)));
+    }
+
+    /**
+     * @return the number of indices, including those of invalid placements
+     */
+    public long size() {
+        return size;
+    }
+
+    public int pieces() {
+        return whiteMen + whiteKings + blackMen + blackKings;
+    }
+
+    /**
+     * @return whether the given pieces have the material of this index
+     */
+    public boolean matches(long white, long black, long kings) {
+        return Long.bitCount(white & ~kings) == whiteMen && Long.bitCount(white & kings) == whiteKings
+                && Long.bitCount(black & ~kings) == blackMen && Long.bitCount(black & kings) == blackKings;
+    }
+
+    /**
+     * @return the index of the given pieces, which must have the material of this index
+     */
+    public long index(long white, long black, long kings) {
+        long wm = white & ~kings, bm = black & ~kings, wk = white & kings, bk = black & kings;
+        long men = wm | bm;
+        return ((rank(wm >>> 5, 0L) * blackMenCount + rank(bm, 0L)) * whiteKingsCount + rank(wk, men))
+                * blackKingsCount + rank(bk, men | wk);
+    }
+
+    public long index(Position pos) {
+        return index(pos.white, pos.black, pos.kings);
+    }
+
+    /**
+     * Sets pos to the placement of the given index.
+     *
+     * @return false if the index puts a white and a black man on the same square; pos is then undefined
+     */
+    public boolean decode(long index, boolean whiteToMove, Position pos) {
+        long bk = index % blackKingsCount;
+        index /= blackKingsCount;
+        long wk = index % whiteKingsCount;
+        index /= whiteKingsCount;
+        long bm = index % blackMenCount;
+        long wm = index / blackMenCount;
+
+        long whiteMenMask = unrank(wm, whiteMen, MAN_SQUARES, 0L) << 5;
+        long blackMenMask = unrank(bm, blackMen, MAN_SQUARES, 0L);
+        if ((whiteMenMask & blackMenMask) != 0) {
+            return false;
+        }
+        long men = whiteMenMask | blackMenMask;
+        long whiteKingsMask = unrank(wk, whiteKings, Position.SQUARES - whiteMen - blackMen, men);
+        long blackKingsMask = unrank(bk, blackKings, Position.SQUARES - whiteMen - blackMen - whiteKings,
+                men | whiteKingsMask);
+        pos.set(whiteMenMask | whiteKingsMask, blackMenMask | blackKingsMask, whiteKingsMask | blackKingsMask,
+                whiteToMove);
+        return true;
+    }
+
+    /**
+     * @return the name of the material, for example wm2wk0bm0bk1 for two white men against a black king
+     */
+    public String name() {
+        return name(whiteMen, whiteKings, blackMen, blackKings);
+    }
+
+    private static String name(int whiteMen, int whiteKings, int blackMen, int blackKings) {
+        return "wm" + whiteMen + "wk" + whiteKings + "bm" + blackMen + "bk" + blackKings;
+    }
+
+    @Override
+    public String toString() {
+        return name();
+    }
+
+    /**
+     * @param pieces the squares of a group of pieces
+     * @param skip squares that are left out of the numbering, because other pieces stand on them
+     * @return the rank of the group among the squares that are not skipped
+     */
+    private static long rank(long pieces, long skip) {
+        long rank = 0;
+        for (int k = 1; pieces != 0; k++, pieces &= pieces - 1) {
+            int s = Long.numberOfTrailingZeros(pieces);
+            int r = s - Long.bitCount(skip & ((1L << s) - 1));
+            rank += BINOMIAL[r][k];
+        }
+        return rank;
+    }
+
+    /**
+     * The inverse of rank.
+     *
+     * @param k the number of pieces of the group
+     * @param n the number of squares that are not skipped
+     * @return the squares of the group
+     */
+    private static long unrank(long rank, int k, int n, long skip) {
+        long pieces = 0;
+        int r = n - 1;
+        for (; k > 0; k--) {
+            while (BINOMIAL[r][k] > rank) {
+                r--;
+            }
+            rank -= BINOMIAL[r][k];
+            pieces |= 1L << square(r, skip);
+            r--;
+        }
+        return pieces;
+    }
+
+    /**
+     * @return the square of rank r among the squares that are not skipped
+     */
+    private static int square(int r, long skip) {
+        long free = ~skip & Position.BOARD;
+        for (; r > 0; r--) {
+            free &= free - 1;
+        }
+        return Long.numberOfTrailingZeros(free);
+    }
+}
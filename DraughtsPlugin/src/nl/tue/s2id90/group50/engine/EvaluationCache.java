@@ -0,0 +1,76 @@
+package nl.tue.s2id90.group50.engine;
+
+import java.util.Arrays;
+
+/**
+ * Direct-mapped cache of evaluations, indexed by the Zobrist key of the position. Every index holds one entry, which
+ * is always replaced. Like in the TranspositionTable an entry is two longs, the key xor-ed with the data and the data:
+ * <ul>
+ * <li>bits 0-31: score</li>
+ * <li>bit 63: set for every stored entry</li>
+ * </ul>
+ * Threads share the cache without locking; an entry that is torn by a concurrent write does not match its key and is
+ * simply a miss.
+ *
+ * @author Jeroen, Andreas
+ */
+public final class EvaluationCache {
+
+    private static final long USED = 1L << 63;
+
+    private final long[] table;
+    private final int mask; // number of entries - 1
+    private final int megabytes; // the size asked for
+
+    /**
+     * Creates a cache of at most the given size; the number of entries is rounded down to a power of two.
+     */
+    public EvaluationCache(int megabytes) {
+        this.megabytes = megabytes;
+        long entries = Math.max(1, ((long) megabytes << 20) / 16);
+        int size = Integer.highestOneBit((int) Math.min(entries, 1 << 28));
+        table = new long[size * 2];
+        mask = size - 1;
+    }
+
+    /**
+     * @return the data stored for the given key, or 0 if the cache does not contain the key.
+     */
+    public long probe(long key) {
+        int i = ((int) key & mask) << 1;
+        long data = table[i + 1];
+        if ((table[i] ^ data) == key && data != 0) {
+            return data;
+        }
+        return 0L;
+    }
+
+    /**
+     * Stores the evaluation of the position with the given Zobrist key.
+     */
+    public void store(long key, int score) {
+        long data = USED | (score & 0xFFFFFFFFL);
+        int i = ((int) key & mask) << 1;
+        table[i] = key ^ data;
+        table[i + 1] = data;
+    }
+
+    /**
+     * @return the size the cache was created with, in megabytes; the table itself is smaller when that size is not a
+     * power of two
+     */
+    public int megabytes() {
+        return megabytes;
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        Arrays.fill(table, 0L);
+    }
+
+    public static int score(long data) {
+        return (int) data;
+    }
+}
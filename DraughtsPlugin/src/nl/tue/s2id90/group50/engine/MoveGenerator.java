@@ -0,0 +1,220 @@
+package nl.tue.s2id90.group50.engine;
+
+import static nl.tue.s2id90.group50.engine.Position.NEIGHBOUR;
+import java.util.HashSet;
+import java.util.Set;
+import nl.tue.s2id90.draughts.DraughtsState;
+import org10x10.dam.game.Move;
+
+/**
+ * Move generator for international draughts working on a bitboard Position. Follows the rules of DraughtsState:
+ * <ul>
+ * <li>capturing is mandatory and only the sequences capturing the most pieces are legal,</li>
+ * <li>men capture forwards and backwards, kings fly over any number of empty squares,</li>
+ * <li>captured pieces are removed after the move, so they can not be jumped twice,</li>
+ * <li>a man only promotes when it ends its move on the last row.</li>
+ * </ul>
+ * Moves are written into a MoveList, so generating moves does not create any objects. Capture sequences with the
+ * same begin square, end square and captured pieces are only generated once.
+ *
+ * @author Jeroen, Andreas
+ */
+public final class MoveGenerator {
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Fills the list with all legal moves for the player to move in pos.
+     *
+     * @return the number of moves generated
+     */
+    public static int generate(Position pos, MoveList list) {
+        list.clear();
+        long own = pos.whiteToMove ? pos.white : pos.black;
+        long enemies = pos.whiteToMove ? pos.black : pos.white;
+        long occupied = pos.white | pos.black;
+
+        // captures
+        for (long pieces = own; pieces != 0; pieces &= pieces - 1) {
+            int s = Long.numberOfTrailingZeros(pieces);
+            if ((pos.kings & (1L << s)) != 0) {
+                kingCaptures(list, s, s, 0L, 0, occupied & ~(1L << s), enemies);
+            } else {
+                manCaptures(list, s, s, 0L, 0, occupied & ~(1L << s), enemies);
+            }
+        }
+        if (list.size > 0) {
+            return list.size;
+        }
+
+        // quiet moves
+        int left = pos.whiteToMove ? Position.UP_LEFT : Position.DOWN_LEFT;
+        for (long pieces = own; pieces != 0; pieces &= pieces - 1) {
+            int s = Long.numberOfTrailingZeros(pieces);
+            if ((pos.kings & (1L << s)) != 0) {
+                for (int d = 0; d < 4; d++) {
+                    for (int n = NEIGHBOUR[d][s]; n >= 0 && (occupied & (1L << n)) == 0; n = NEIGHBOUR[d][n]) {
+                        list.add(MoveList.encode(s, n, 0), 0L);
+                    }
+                }
+            } else {
+                for (int d = left; d <= left + 1; d++) {
+                    int n = NEIGHBOUR[d][s];
+                    if (n >= 0 && (occupied & (1L << n)) == 0) {
+                        list.add(MoveList.encode(s, n, 0), 0L);
+                    }
+                }
+            }
+        }
+        return list.size;
+    }
+
+    /**
+     * @return whether the player to move in pos has at least one legal move
+     */
+    public static boolean hasMoves(Position pos) {
+        long own = pos.whiteToMove ? pos.white : pos.black;
+        long enemies = pos.whiteToMove ? pos.black : pos.white;
+        long occupied = pos.white | pos.black;
+        int left = pos.whiteToMove ? Position.UP_LEFT : Position.DOWN_LEFT;
+        for (long pieces = own; pieces != 0; pieces &= pieces - 1) {
+            int s = Long.numberOfTrailingZeros(pieces);
+            boolean king = (pos.kings & (1L << s)) != 0;
+            for (int d = 0; d < 4; d++) {
+                int n = NEIGHBOUR[d][s];
+                if (n < 0) {
+                    continue;
+                }
+                if ((occupied & (1L << n)) == 0) {
+                    // kings move in every direction, men only forward
+                    if (king || d == left || d == left + 1) {
+                        return true;
+                    }
+                } else {
+                    int l = NEIGHBOUR[d][n];
+                    if ((enemies & (1L << n)) != 0 && l >= 0 && (occupied & (1L << l)) == 0) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Depth first search over all capture sequences of a man.
+     *
+     * @param from square the man started on
+     * @param sq square the man is currently on
+     * @param captured pieces captured so far
+     * @param count number of pieces captured so far
+     * @param occupied all pieces, without the moving man
+     * @param enemies pieces of the opponent, including the ones already captured
+     */
+    private static void manCaptures(MoveList list, int from, int sq, long captured, int count,
+            long occupied, long enemies) {
+        boolean extended = false;
+        for (int d = 0; d < 4; d++) {
+            int n = NEIGHBOUR[d][sq];
+            if (n < 0 || (enemies & ~captured & (1L << n)) == 0) {
+                continue;
+            }
+            int l = NEIGHBOUR[d][n];
+            if (l < 0 || (occupied & (1L << l)) != 0) {
+                continue;
+            }
+            extended = true;
+            manCaptures(list, from, l, captured | (1L << n), count + 1, occupied, enemies);
+        }
+        if (!extended && count > 0) {
+            addCapture(list, from, sq, captured, count);
+        }
+    }
+
+    /**
+     * Depth first search over all capture sequences of a king, see manCaptures.
+     */
+    private static void kingCaptures(MoveList list, int from, int sq, long captured, int count,
+            long occupied, long enemies) {
+        boolean extended = false;
+        for (int d = 0; d < 4; d++) {
+            int n = NEIGHBOUR[d][sq];
+            while (n >= 0 && (occupied & (1L << n)) == 0) {
+                n = NEIGHBOUR[d][n];
+            }
+            if (n < 0 || (enemies & ~captured & (1L << n)) == 0) {
+                continue;
+            }
+            for (int l = NEIGHBOUR[d][n]; l >= 0 && (occupied & (1L << l)) == 0; l = NEIGHBOUR[d][l]) {
+                extended = true;
+                kingCaptures(list, from, l, captured | (1L << n), count + 1, occupied, enemies);
+            }
+        }
+        if (!extended && count > 0) {
+            addCapture(list, from, sq, captured, count);
+        }
+    }
+
+    /**
+     * Adds a finished capture sequence, applying the majority capture rule.
+     */
+    private static void addCapture(MoveList list, int from, int to, long captured, int count) {
+        int max = list.size == 0 ? 0 : MoveList.captureCount(list.moves[0]);
+        if (count < max) {
+            return;
+        } else if (count > max) {
+            list.clear();
+        }
+        int move = MoveList.encode(from, to, count);
+        if (list.indexOf(move, captured) < 0) {
+            list.add(move, captured);
+        }
+    }
+
+    /**
+     * Finds the org10x10 move that corresponds to move i of the list generated for pos. The moves are matched on the
+     * position they lead to, so this is only meant to be used at the root of the search.
+     *
+     * @param state the draughts state equal to pos
+     * @return the corresponding move of state.getMoves(), or null if there is none
+     */
+    public static Move toMove(DraughtsState state, Position pos, MoveList list, int i) {
+        Position target = new Position().copyFrom(pos);
+        target.make(list, i);
+        Position child = new Position();
+        for (Move m : state.getMoves()) {
+            state.doMove(m);
+            child.load(state);
+            state.undoMove(m);
+            if (child.equals(target)) {
+                return m;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Validates the generator against DraughtsState.getMoves(): both must lead to exactly the same set of positions.
+     *
+     * @return whether the generated moves are equivalent to the moves of state
+     */
+    public static boolean matches(DraughtsState state) {
+        Position pos = Position.of(state);
+        MoveList list = new MoveList();
+        Set<Position> generated = new HashSet<>();
+        for (int i = 0, n = generate(pos, list); i < n; i++) {
+            pos.make(list, i);
+            generated.add(new Position().copyFrom(pos));
+            pos.unmake();
+        }
+
+        Set<Position> expected = new HashSet<>();
+        for (Move m : state.getMoves()) {
+            state.doMove(m);
+            expected.add(Position.of(state));
+            state.undoMove(m);
+        }
+        return generated.equals(expected);
+    }
+}
@@ -0,0 +1,112 @@
+package nl.tue.s2id90.group50.engine;
+
+/**
+ * A preallocated buffer of moves as produced by the MoveGenerator. A move is encoded in an int:
+ * <ul>
+ * <li>bits 0-5: the square the piece moves from</li>
+ * <li>bits 6-11: the square the piece ends on</li>
+ * <li>bits 12-16: the number of captured pieces</li>
+ * </ul>
+ * The pieces captured by move i are stored as a mask in captured(i), so a list can be filled and read without creating
+ * any objects.
+ *
+ * @author Jeroen, Andreas
+ */
+public final class MoveList {
+
+    /** maximum number of moves in a list, far above the number of moves in any reachable position **/
+    public static final int CAPACITY = 256;
+
+    final int[] moves = new int[CAPACITY];
+    final long[] captured = new long[CAPACITY];
+    int size;
+
+    public static int encode(int from, int to, int captureCount) {
+        return from | (to << 6) | (captureCount << 12);
+    }
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static int captureCount(int move) {
+        return move >>> 12;
+    }
+
+    public static boolean isCapture(int move) {
+        return move >>> 12 != 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int move(int i) {
+        return moves[i];
+    }
+
+    public long captured(int i) {
+        return captured[i];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    void add(int move, long capturedMask) {
+        moves[size] = move;
+        captured[size] = capturedMask;
+        size++;
+    }
+
+    /**
+     * Exchanges moves i and j, used for move ordering.
+     */
+    public void swap(int i, int j) {
+        int m = moves[i];
+        moves[i] = moves[j];
+        moves[j] = m;
+        long c = captured[i];
+        captured[i] = captured[j];
+        captured[j] = c;
+    }
+
+    /**
+     * @return the index of the given move in this list, or -1 if it is not in the list
+     */
+    public int indexOf(int move, long capturedMask) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move && captured[i] == capturedMask) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the index of the first move in this list with the given encoding, or -1 if there is none
+     */
+    public int indexOf(int move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the move in official notation, e.g. "32-28" or "28x17"
+     */
+    public static String toString(int move) {
+        return (from(move) + 1) + (isCapture(move) ? "x" : "-") + (to(move) + 1);
+    }
+}
@@ -0,0 +1,366 @@
+package nl.tue.s2id90.group50.engine;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import nl.tue.s2id90.draughts.DraughtsState;
+import org10x10.dam.game.Move;
+
+/**
+ * Perft: counts the leaf nodes of the game tree of a position to a fixed depth, to validate a move generator against
+ * known counts or against DraughtsState, and to measure its speed. The counts of the MoveGenerator use
+ * <ul>
+ * <li>bulk counting: the moves of the last ply are counted, not played,</li>
+ * <li>optionally a hash table of the counts of subtrees, so transpositions are only counted once,</li>
+ * <li>optionally several threads, that split the moves of the root.</li>
+ * </ul>
+ * The same counts can be made with DraughtsState.getMoves(), doMove and undoMove, and findMismatch looks for the
+ * first position in which the two disagree.
+ *
+ * <p>
+ * Run it as a program, see main, with for example "7 -divide -threads 4" or "-suite 6".
+ * </p>
+ *
+ * @author Jeroen, Andreas
+ */
+public final class Perft {
+
+    /** the starting position **/
+    public static final String START = "W:W31-50:B1-20";
+    /** published leaf counts of the starting position, at depth 1, 2, ... **/
+    public static final long[] START_COUNTS = {9, 81, 658, 4265, 27117, 167140, 1049442, 6483961, 41022423};
+
+    /** positions with many captures: multi-jumps that choose between branches, and flying kings **/
+    public static final String[][] SUITE = {
+        {"start", START},
+        {"woldouby", "W:W25,27,28,30,32,33,34,35,37,38:B12,13,14,16,18,19,21,23,24,26"},
+        {"multi-jumps", "W:W27,28,32,33,37,38,39,42,43,48:B7,8,9,12,13,14,17,18,19,22,23,24"},
+        {"kings", "W:WK3,K46,28,33,38:BK41,K5,17,22,24,35,36"},
+        {"king captures", "B:W8,13,19,24,29,30,32,38,40,43:BK4,K50,16,26"}
+    };
+
+    /**
+     * Counts of subtrees, indexed by the Zobrist key of the position and the depth. Every index holds one entry that
+     * is always replaced: the key xor-ed with the count, and the count. Threads share the table without locking; an
+     * entry that is torn by a concurrent write does not match its key.
+     */
+    static final class Table {
+
+        /** xor-ed into the key, so the count of a position at another depth does not match **/
+        private static final long[] DEPTH = new long[Position.MAX_PLY];
+
+        static {
+            SplittableRandom random = new SplittableRandom(0x5EEDL);
+            for (int d = 0; d < DEPTH.length; d++) {
+                DEPTH[d] = random.nextLong();
+            }
+        }
+
+        private final long[] table;
+        private final int mask; // number of entries - 1
+
+        Table(int megabytes) {
+            long entries = Math.max(1, ((long) megabytes << 20) / 16);
+            int size = Integer.highestOneBit((int) Math.min(entries, 1 << 28));
+            table = new long[size * 2];
+            mask = size - 1;
+        }
+
+        /**
+         * @return the count of the position with the given key at the given depth, -1 if it is not in the table
+         */
+        long probe(long key, int depth) {
+            key ^= DEPTH[depth];
+            int i = ((int) key & mask) << 1;
+            long count = table[i + 1];
+            return (table[i] ^ count) == key ? count : -1;
+        }
+
+        void store(long key, int depth, long count) {
+            key ^= DEPTH[depth];
+            int i = ((int) key & mask) << 1;
+            table[i] = key ^ count;
+            table[i + 1] = count;
+        }
+    }
+
+    private final MoveList[] lists = new MoveList[Position.MAX_PLY]; // move buffers, indexed by ply
+    private final Table table; // null for no hashing
+
+    private Perft(Table table) {
+        this.table = table;
+    }
+
+    private long count(Position pos, int depth, int ply) {
+        if (depth == 0) {
+            return 1;
+        }
+        long key = pos.hash();
+        if (table != null && depth > 1) {
+            long count = table.probe(key, depth);
+            if (count >= 0) {
+                return count;
+            }
+        }
+        MoveList moves = lists[ply];
+        if (moves == null) {
+            moves = lists[ply] = new MoveList();
+        }
+        int n = MoveGenerator.generate(pos, moves);
+        if (depth == 1) {
+            return n; // bulk counting
+        }
+        long count = 0;
+        for (int i = 0; i < n; i++) {
+            pos.make(moves, i);
+            count += count(pos, depth - 1, ply + 1);
+            pos.unmake();
+        }
+        if (table != null) {
+            table.store(key, depth, count);
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of leaf nodes at the given depth below pos, counted on one thread without hashing.
+     */
+    public static long perft(Position pos, int depth) {
+        return new Perft(null).count(new Position().copyFrom(pos), depth, 0);
+    }
+
+    /**
+     * @param hashMegabytes size of the hash table of the counts, 0 for none
+     * @param threads number of threads that split the root moves
+     * @return the number of leaf nodes at the given depth below pos
+     */
+    public static long perft(Position pos, int depth, int hashMegabytes, int threads) {
+        long count = 0;
+        for (long c : divide(pos, depth, hashMegabytes, threads, new MoveList())) {
+            count += c;
+        }
+        return depth == 0 ? 1 : count;
+    }
+
+    /**
+     * Counts the leaf nodes below every root move and prints them, one root move per line.
+     *
+     * @return the total number of leaf nodes at the given depth below pos
+     */
+    public static long divide(Position pos, int depth, int hashMegabytes, int threads, PrintStream out) {
+        MoveList moves = new MoveList();
+        long[] counts = divide(pos, depth, hashMegabytes, threads, moves);
+        long count = 0;
+        for (int i = 0; i < counts.length; i++) {
+            out.format("%s: %d%n", MoveList.toString(moves.move(i)), counts[i]);
+            count += counts[i];
+        }
+        out.format("%d moves, %d nodes%n", counts.length, count);
+        return count;
+    }
+
+    /**
+     * Fills moves with the root moves of pos, and counts the leaf nodes below each of them.
+     *
+     * @return the counts, indexed like moves
+     */
+    private static long[] divide(Position pos, int depth, int hashMegabytes, int threads, MoveList moves) {
+        int n = MoveGenerator.generate(pos, moves);
+        long[] counts = new long[n];
+        if (depth <= 0) {
+            return counts;
+        }
+        Table table = hashMegabytes > 0 ? new Table(hashMegabytes) : null;
+        List<Callable<Long>> tasks = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Position child = new Position().copyFrom(pos);
+            child.make(moves, i);
+            tasks.add(() -> new Perft(table).count(child, depth - 1, 0));
+        }
+
+        if (threads <= 1) {
+            for (int i = 0; i < n; i++) {
+                try {
+                    counts[i] = tasks.get(i).call();
+                } catch (Exception ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+            return counts;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Long>> results = pool.invokeAll(tasks);
+            for (int i = 0; i < n; i++) {
+                counts[i] = results.get(i).get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("perft was interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("perft failed", ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return counts;
+    }
+
+    /**
+     * @return the number of leaf nodes at the given depth below state, counted with DraughtsState. The state is
+     * unchanged afterwards.
+     */
+    public static long perft(DraughtsState state, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        List<Move> moves = state.getMoves();
+        if (depth == 1) {
+            return moves.size(); // bulk counting
+        }
+        long count = 0;
+        for (Move move : moves) {
+            state.doMove(move);
+            count += perft(state, depth - 1);
+            state.undoMove(move);
+        }
+        return count;
+    }
+
+    /**
+     * Counts the leaf nodes below every root move with DraughtsState and prints them, one root move per line.
+     *
+     * @return the total number of leaf nodes at the given depth below state
+     */
+    public static long divide(DraughtsState state, int depth, PrintStream out) {
+        long count = 0;
+        List<Move> moves = state.getMoves();
+        for (Move move : moves) {
+            state.doMove(move);
+            long c = perft(state, depth - 1);
+            state.undoMove(move);
+            out.format("%s: %d%n", move, c);
+            count += c;
+        }
+        out.format("%d moves, %d nodes%n", moves.size(), count);
+        return count;
+    }
+
+    /**
+     * Compares the MoveGenerator with DraughtsState in the tree below state: wherever the counts of a subtree differ,
+     * the search descends into it, until it finds the position in which the generated moves differ.
+     *
+     * @return that position in FEN, or null when both count the same leaf nodes to the given depth
+     */
+    public static String findMismatch(DraughtsState state, int depth) {
+        if (!MoveGenerator.matches(state)) {
+            return Position.of(state).toFen();
+        }
+        if (depth <= 1) {
+            return null;
+        }
+        for (Move move : state.getMoves()) {
+            state.doMove(move);
+            try {
+                if (perft(state, depth - 1) != perft(Position.of(state), depth - 1)) {
+                    String mismatch = findMismatch(state, depth - 1);
+                    if (mismatch != null) {
+                        return mismatch;
+                    }
+                }
+            } finally {
+                state.undoMove(move);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Runs perft from the command line:
+     * <pre>
+     * Perft [depth] [-fen FEN | -suite] [-divide] [-hash MB] [-threads N] [-state | -compare]
+     * </pre>
+     * Counts to every depth up to the given depth (default 7) from the starting position, the given position or every
+     * position of the SUITE, and prints the counts with the time and speed. -divide prints the counts per root move at
+     * the last depth. -state counts with DraughtsState instead of the MoveGenerator, -compare counts with both and
+     * looks for the position in which they differ; both only start from the starting position of DraughtsState.
+     */
+    public static void main(String[] args) {
+        int depth = 7, hash = 0, threads = 1;
+        String fen = START;
+        boolean suite = false, divide = false, state = false, compare = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-fen":
+                    fen = args[++i];
+                    break;
+                case "-suite":
+                    suite = true;
+                    break;
+                case "-divide":
+                    divide = true;
+                    break;
+                case "-hash":
+                    hash = Integer.parseInt(args[++i]);
+                    break;
+                case "-threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "-state":
+                    state = true;
+                    break;
+                case "-compare":
+                    compare = true;
+                    break;
+                default:
+                    depth = Integer.parseInt(args[i]);
+            }
+        }
+
+        if (state || compare) {
+            DraughtsState start = new DraughtsState();
+            Position pos = Position.of(start);
+            for (int d = 1; d <= depth; d++) {
+                long time = System.nanoTime();
+                long count = divide && d == depth ? divide(start, d, System.out) : perft(start, d);
+                time = System.nanoTime() - time;
+                report("DraughtsState", d, count, time);
+                if (compare) {
+                    time = System.nanoTime();
+                    long generated = perft(pos, d, hash, threads);
+                    report("MoveGenerator", d, generated, System.nanoTime() - time);
+                    if (generated != count) {
+                        System.out.println("counts differ, first position with other moves: " + findMismatch(start, d));
+                        return;
+                    }
+                }
+            }
+            return;
+        }
+
+        String[][] positions = suite ? SUITE : new String[][]{{"", fen}};
+        for (String[] position : positions) {
+            Position pos = Position.fromFen(position[1]);
+            System.out.println(position[0] + (position[0].isEmpty() ? "" : " ") + pos.toFen());
+            for (int d = 1; d <= depth; d++) {
+                long time = System.nanoTime();
+                long count = divide && d == depth
+                        ? divide(pos, d, hash, threads, System.out) : perft(pos, d, hash, threads);
+                report("MoveGenerator", d, count, System.nanoTime() - time);
+                if (position[1].equals(START) && d <= START_COUNTS.length && count != START_COUNTS[d - 1]) {
+                    System.out.println("expected " + START_COUNTS[d - 1]);
+                }
+            }
+        }
+    }
+
+    private static void report(String generator, int depth, long count, long nanos) {
+        System.out.format("%s depth %2d: %12d nodes %8d ms %10d nodes/s%n", generator, depth, count, nanos / 1000000,
+                count * 1000000000L / Math.max(1, nanos));
+    }
+}
@@ -0,0 +1,147 @@
+package nl.tue.s2id90.group50.engine;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Monte Carlo playouts: random games of a fixed number of plies from a position, of which the final positions are
+ * evaluated. A playout plays its moves with make on a copy of the position and takes them back with unmake; every
+ * move is chosen by drawing an index into the generated MoveList from a SplittableRandom. So apart from the
+ * evaluation function no objects are created per playout.
+ *
+ * <p>
+ * With more than one thread the playouts of a position are split into equal batches, one per worker. Every worker
+ * owns a copy of the position, a move list and its own random generator split off the first one, so the workers
+ * share nothing but the root position. The calling thread runs the first batch itself, the others run on a
+ * ForkJoinPool. Handing a batch to the pool costs about as much as a few playouts, so a small number of playouts is
+ * always run on the calling thread.
+ * </p>
+ *
+ * <p>
+ * The batches only depend on the number of playouts and threads, so with a fixed seed and thread count the results
+ * are reproducible.
+ * </p>
+ *
+ * @author Jeroen, Andreas
+ */
+public final class Playouts {
+
+    /** fewer playouts per thread than this are not split over the pool **/
+    public static final int MIN_BATCH = 16;
+
+    /**
+     * A batch of playouts from the root position, reused for every position.
+     */
+    private final class Worker extends RecursiveAction {
+
+        private final Position pos = new Position();
+        private final MoveList moves = new MoveList();
+        private final SplittableRandom random;
+        int count, length; // number of playouts and their length in plies
+        long sum; // sum of the evaluations of the playouts of the last batch
+
+        Worker(SplittableRandom random) {
+            this.random = random;
+        }
+
+        @Override
+        protected void compute() {
+            pos.copyFrom(root);
+            long s = 0;
+            for (int i = 0; i < count; i++) {
+                int made = 0;
+                while (made < length) {
+                    int n = MoveGenerator.generate(pos, moves);
+                    if (n == 0) {
+                        break;
+                    }
+                    pos.make(moves, random.nextInt(n));
+                    made++;
+                }
+                s += evaluation.applyAsInt(pos);
+                for (; made > 0; made--) {
+                    pos.unmake();
+                }
+            }
+            sum = s;
+        }
+    }
+
+    private final ToIntFunction<Position> evaluation;
+    private final Position root = new Position();
+    private final Worker[] workers;
+    private final ForkJoinPool pool; // null with one thread
+    private long playouts; // playouts run since the last reset
+
+    /**
+     * @param threads number of threads, including the calling thread
+     * @param seed seed of the random generators, so the playouts can be repeated
+     * @param evaluation evaluation of the final position of a playout
+     */
+    public Playouts(int threads, long seed, ToIntFunction<Position> evaluation) {
+        this.evaluation = evaluation;
+        SplittableRandom random = new SplittableRandom(seed);
+        workers = new Worker[Math.max(1, threads)];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker(random.split());
+        }
+        pool = workers.length > 1 ? new ForkJoinPool(workers.length - 1) : null;
+    }
+
+    /**
+     * Runs the given number of playouts of the given number of plies from pos, or fewer when a game ends before that.
+     * The position is unchanged afterwards.
+     *
+     * @return the sum of the evaluations of the final positions
+     */
+    public long run(Position pos, int count, int length) {
+        root.copyFrom(pos);
+        playouts += count;
+        int threads = Math.max(1, Math.min(workers.length, count / MIN_BATCH));
+        for (int i = 0; i < threads; i++) {
+            Worker w = workers[i];
+            w.count = count / threads + (i < count % threads ? 1 : 0);
+            w.length = length;
+        }
+        for (int i = 1; i < threads; i++) {
+            workers[i].reinitialize();
+            pool.execute(workers[i]);
+        }
+        workers[0].compute();
+        long sum = workers[0].sum;
+        for (int i = 1; i < threads; i++) {
+            workers[i].join();
+            sum += workers[i].sum;
+        }
+        return sum;
+    }
+
+    /**
+     * @return the number of threads the playouts are split over
+     */
+    public int threads() {
+        return workers.length;
+    }
+
+    /**
+     * @return the number of playouts run since the last call of resetCounters
+     */
+    public long playouts() {
+        return playouts;
+    }
+
+    public void resetCounters() {
+        playouts = 0;
+    }
+
+    /**
+     * Stops the threads of the pool.
+     */
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,515 @@
+package nl.tue.s2id90.group50.engine;
+
+import nl.tue.s2id90.draughts.DraughtsState;
+import org10x10.dam.game.DamConstants;
+
+/**
+ * A draughts position stored as bitboards. Every one of the 50 playable squares is one bit of a long: square s (0..49)
+ * is field s + 1 in the official numbering, so bit 0 is field 1 in the top left corner and bit 49 is field 50 in the
+ * bottom right corner. White moves up the board (towards field 1), black moves down.
+ *
+ * <p>
+ * A position is built from a DraughtsState once at the root of the search. After that the search plays moves of the
+ * MoveGenerator on it with make/unmake, which only copies three longs per ply onto a preallocated stack.
+ * </p>
+ *
+ * <p>
+ * The position also maintains its Zobrist key. make() updates it for the moving piece, its promotion, every captured
+ * piece and the side to move, so hash() is available in O(1) at every node of the search.
+ * </p>
+ *
+ * <p>
+ * In the same way a position can maintain a piece-square score for an evaluation function: the sum of the weights of
+ * its pieces in a table set with setPieceSquareTable. make() only adds the weights of the squares that changed.
+ * </p>
+ *
+ * @author Jeroen, Andreas
+ */
+public final class Position implements DamConstants {
+
+    /** number of playable squares **/
+    public static final int SQUARES = 50;
+    /** mask containing all playable squares **/
+    public static final long BOARD = (1L << SQUARES) - 1;
+
+    /** row (0..9) of every square, row 0 being the top row **/
+    public static final int[] ROW = new int[SQUARES];
+    /** column (0..9) of every square **/
+    public static final int[] COL = new int[SQUARES];
+    /**
+     * NEIGHBOUR[d][s] is the square next to s in direction d, or -1 when that is off the board. The directions are
+     * UP_LEFT, UP_RIGHT, DOWN_LEFT and DOWN_RIGHT.
+     */
+    public static final int[][] NEIGHBOUR = new int[4][SQUARES];
+    public static final int UP_LEFT = 0, UP_RIGHT = 1, DOWN_LEFT = 2, DOWN_RIGHT = 3;
+
+    /** squares on which white men promote (top row) **/
+    public static final long WHITE_PROMOTION = 0x1FL;
+    /** squares on which black men promote (bottom row) **/
+    public static final long BLACK_PROMOTION = 0x1FL << 45;
+
+    /** maximum number of moves that can be made on a position without undoing them **/
+    public static final int MAX_PLY = 512;
+
+    /** when true, every make() checks the incremental Zobrist key against a key computed from scratch **/
+    static final boolean VERIFY_HASH = false;
+
+    static {
+        for (int s = 0; s < SQUARES; s++) {
+            ROW[s] = s / 5;
+            COL[s] = 2 * (s % 5) + ((ROW[s] + 1) % 2);
+        }
+        for (int s = 0; s < SQUARES; s++) {
+            for (int d = 0; d < 4; d++) {
+                int row = ROW[s] + (d < 2 ? -1 : 1);
+                int col = COL[s] + (d % 2 == 0 ? -1 : 1);
+                NEIGHBOUR[d][s] = row < 0 || row > 9 || col < 0 || col > 9 ? -1 : square(row, col);
+            }
+        }
+    }
+
+    long white; // all white pieces
+    long black; // all black pieces
+    long kings; // kings of both colours
+    boolean whiteToMove;
+    private long hash; // Zobrist key
+    private int[][] table; // piece-square weights, indexed by the piece numbers of Zobrist and the square, or null
+    private int score; // sum of the weights in table of all pieces
+
+    // state before each move made, indexed by ply, used by unmake()
+    private final long[] whiteStack = new long[MAX_PLY];
+    private final long[] blackStack = new long[MAX_PLY];
+    private final long[] kingsStack = new long[MAX_PLY];
+    private final long[] hashStack = new long[MAX_PLY];
+    private final int[] scoreStack = new int[MAX_PLY];
+    private int ply;
+
+    public Position() {
+    }
+
+    /**
+     * @return a new position equal to the given draughts state.
+     */
+    public static Position of(DraughtsState state) {
+        return new Position().load(state);
+    }
+
+    /**
+     * @return a new position with the pieces on their starting squares, white to move.
+     */
+    public static Position initial() {
+        Position p = new Position();
+        p.black = (1L << 20) - 1; // fields 1-20
+        p.white = ((1L << 20) - 1) << 30; // fields 31-50
+        p.whiteToMove = true;
+        p.hash = Zobrist.hash(p);
+        return p;
+    }
+
+    /**
+     * Parses a position in the FEN notation of PDN, e.g. "W:W31-50:B1-20" for the starting position or
+     * "B:WK46,28:B17,K3". The first letter is the side to move, followed by the fields of the white and of the black
+     * pieces; a K marks a king and a-b a range of fields.
+     *
+     * @throws IllegalArgumentException when fen is not a valid position
+     */
+    public static Position fromFen(String fen) {
+        String[] parts = fen.trim().replace(".", "").replace(" ", "").toUpperCase().split(":");
+        if (parts.length < 1 || !(parts[0].equals("W") || parts[0].equals("B"))) {
+            throw new IllegalArgumentException("no side to move in " + fen);
+        }
+        Position p = new Position();
+        p.whiteToMove = parts[0].equals("W");
+        for (int i = 1; i < parts.length; i++) {
+            if (parts[i].isEmpty() || !(parts[i].charAt(0) == 'W' || parts[i].charAt(0) == 'B')) {
+                throw new IllegalArgumentException("no colour in " + parts[i] + " of " + fen);
+            }
+            boolean white = parts[i].charAt(0) == 'W';
+            for (String piece : parts[i].substring(1).split(",")) {
+                if (piece.isEmpty()) {
+                    continue;
+                }
+                boolean king = piece.charAt(0) == 'K';
+                String[] range = piece.substring(king ? 1 : 0).split("-");
+                int first, last;
+                try {
+                    first = Integer.parseInt(range[0]);
+                    last = range.length > 1 ? Integer.parseInt(range[1]) : first;
+                } catch (NumberFormatException ex) {
+                    throw new IllegalArgumentException("no field in " + piece + " of " + fen);
+                }
+                if (first < 1 || last > SQUARES || first > last || range.length > 2) {
+                    throw new IllegalArgumentException("no field in " + piece + " of " + fen);
+                }
+                for (int field = first; field <= last; field++) {
+                    long bit = 1L << (field - 1);
+                    if (((p.white | p.black) & bit) != 0) {
+                        throw new IllegalArgumentException("field " + field + " is occupied twice in " + fen);
+                    }
+                    if (white) {
+                        p.white |= bit;
+                    } else {
+                        p.black |= bit;
+                    }
+                    if (king) {
+                        p.kings |= bit;
+                    }
+                }
+            }
+        }
+        p.hash = Zobrist.hash(p);
+        return p;
+    }
+
+    /**
+     * @return this position in the FEN notation of PDN, see fromFen
+     */
+    public String toFen() {
+        StringBuilder sb = new StringBuilder(whiteToMove ? "W" : "B");
+        for (int colour = 0; colour < 2; colour++) {
+            long pieces = colour == 0 ? white : black;
+            sb.append(colour == 0 ? ":W" : ":B");
+            for (long m = pieces; m != 0; m &= m - 1) {
+                int s = Long.numberOfTrailingZeros(m);
+                if (m != pieces) {
+                    sb.append(',');
+                }
+                if ((kings & (1L << s)) != 0) {
+                    sb.append('K');
+                }
+                sb.append(s + 1);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Overwrites this position with the given draughts state.
+     *
+     * @return this position
+     */
+    public Position load(DraughtsState state) {
+        int[] pieces = state.getPieces();
+        long w = 0, b = 0, k = 0;
+        for (int s = 0; s < SQUARES; s++) {
+            long bit = 1L << s;
+            switch (pieces[s + 1]) {
+                case WHITEPIECE:
+                    w |= bit;
+                    break;
+                case BLACKPIECE:
+                    b |= bit;
+                    break;
+                case WHITEKING:
+                    w |= bit;
+                    k |= bit;
+                    break;
+                case BLACKKING:
+                    b |= bit;
+                    k |= bit;
+                    break;
+            }
+        }
+        white = w;
+        black = b;
+        kings = k;
+        whiteToMove = state.isWhiteToMove();
+        hash = Zobrist.hash(this);
+        score = pieceSquareScore(table);
+        ply = 0;
+        return this;
+    }
+
+    /**
+     * Overwrites this position with the given pieces, keeping its piece-square table.
+     *
+     * @param white the white pieces
+     * @param black the black pieces
+     * @param kings the kings of both colours
+     * @return this position
+     */
+    public Position set(long white, long black, long kings, boolean whiteToMove) {
+        this.white = white;
+        this.black = black;
+        this.kings = kings;
+        this.whiteToMove = whiteToMove;
+        hash = Zobrist.hash(this);
+        score = pieceSquareScore(table);
+        ply = 0;
+        return this;
+    }
+
+    /**
+     * Overwrites this position with the given position, including its piece-square table.
+     *
+     * @return this position
+     */
+    public Position copyFrom(Position p) {
+        white = p.white;
+        black = p.black;
+        kings = p.kings;
+        whiteToMove = p.whiteToMove;
+        hash = p.hash;
+        table = p.table;
+        score = p.score;
+        ply = 0;
+        return this;
+    }
+
+    /**
+     * Sets the table of which make() maintains the piece-square score.
+     *
+     * @param table weights indexed by Zobrist.WHITE_MAN .. Zobrist.BLACK_KING and the square, or null for none
+     * @return this position
+     */
+    public Position setPieceSquareTable(int[][] table) {
+        this.table = table;
+        score = pieceSquareScore(table);
+        return this;
+    }
+
+    /**
+     * @return the piece-square table of this position, null if it has none
+     */
+    public int[][] pieceSquareTable() {
+        return table;
+    }
+
+    /**
+     * @return the sum of the weights of all pieces in the piece-square table of this position, in O(1)
+     */
+    public int pieceSquareScore() {
+        return score;
+    }
+
+    /**
+     * @return the sum of the weights of all pieces in the given table, computed from scratch, 0 for a null table
+     */
+    public int pieceSquareScore(int[][] table) {
+        if (table == null) {
+            return 0;
+        }
+        return sum(white & ~kings, table[Zobrist.WHITE_MAN]) + sum(black & ~kings, table[Zobrist.BLACK_MAN])
+                + sum(white & kings, table[Zobrist.WHITE_KING]) + sum(black & kings, table[Zobrist.BLACK_KING]);
+    }
+
+    private static int sum(long mask, int[] weights) {
+        int sum = 0;
+        for (; mask != 0; mask &= mask - 1) {
+            sum += weights[Long.numberOfTrailingZeros(mask)];
+        }
+        return sum;
+    }
+
+    /**
+     * Plays a move as encoded by MoveList on this position. Men that end their move on the last row are promoted.
+     *
+     * @param move the encoded move
+     * @param captured mask of the pieces captured by the move
+     */
+    public void make(int move, long captured) {
+        whiteStack[ply] = white;
+        blackStack[ply] = black;
+        kingsStack[ply] = kings;
+        hashStack[ply] = hash;
+        scoreStack[ply] = score;
+        ply++;
+
+        int from = MoveList.from(move);
+        int to = MoveList.to(move);
+        long fromBit = 1L << from;
+        long toBit = 1L << to;
+        boolean king = (kings & fromBit) != 0;
+        if (table != null) {
+            score += pieceSquareDelta(from, to, captured, king);
+        }
+        long h = hash ^ Zobrist.BLACK_TO_MOVE;
+        if (whiteToMove) {
+            h ^= Zobrist.hash(captured & ~kings, Zobrist.PIECE[Zobrist.BLACK_MAN])
+                    ^ Zobrist.hash(captured & kings, Zobrist.PIECE[Zobrist.BLACK_KING]);
+            white = (white & ~fromBit) | toBit;
+            black &= ~captured;
+            kings &= ~captured;
+            if (king) {
+                kings = (kings & ~fromBit) | toBit;
+                h ^= Zobrist.PIECE[Zobrist.WHITE_KING][from] ^ Zobrist.PIECE[Zobrist.WHITE_KING][to];
+            } else if ((toBit & WHITE_PROMOTION) != 0) {
+                kings |= toBit;
+                h ^= Zobrist.PIECE[Zobrist.WHITE_MAN][from] ^ Zobrist.PIECE[Zobrist.WHITE_KING][to];
+            } else {
+                h ^= Zobrist.PIECE[Zobrist.WHITE_MAN][from] ^ Zobrist.PIECE[Zobrist.WHITE_MAN][to];
+            }
+        } else {
+            h ^= Zobrist.hash(captured & ~kings, Zobrist.PIECE[Zobrist.WHITE_MAN])
+                    ^ Zobrist.hash(captured & kings, Zobrist.PIECE[Zobrist.WHITE_KING]);
+            black = (black & ~fromBit) | toBit;
+            white &= ~captured;
+            kings &= ~captured;
+            if (king) {
+                kings = (kings & ~fromBit) | toBit;
+                h ^= Zobrist.PIECE[Zobrist.BLACK_KING][from] ^ Zobrist.PIECE[Zobrist.BLACK_KING][to];
+            } else if ((toBit & BLACK_PROMOTION) != 0) {
+                kings |= toBit;
+                h ^= Zobrist.PIECE[Zobrist.BLACK_MAN][from] ^ Zobrist.PIECE[Zobrist.BLACK_KING][to];
+            } else {
+                h ^= Zobrist.PIECE[Zobrist.BLACK_MAN][from] ^ Zobrist.PIECE[Zobrist.BLACK_MAN][to];
+            }
+        }
+        hash = h;
+        whiteToMove = !whiteToMove;
+
+        if (VERIFY_HASH && hash != Zobrist.hash(this)) {
+            throw new IllegalStateException("incremental hash differs after " + MoveList.toString(move) + " in\n" + this);
+        }
+        if (VERIFY_HASH && score != pieceSquareScore(table)) {
+            throw new IllegalStateException("incremental score differs after " + MoveList.toString(move) + " in\n" + this);
+        }
+    }
+
+    /**
+     * @return the change of the piece-square score by the given move, computed before the move is made
+     */
+    private int pieceSquareDelta(int from, int to, long captured, boolean king) {
+        // the king of a colour is numbered two higher than its man, the men of both colours differ in the lowest bit
+        int man = whiteToMove ? Zobrist.WHITE_MAN : Zobrist.BLACK_MAN;
+        long promotion = whiteToMove ? WHITE_PROMOTION : BLACK_PROMOTION;
+        int piece = king ? man + 2 : man;
+        int landed = king || (promotion & (1L << to)) != 0 ? man + 2 : man;
+        int delta = table[landed][to] - table[piece][from];
+        int opponent = man ^ 1;
+        for (long c = captured; c != 0; c &= c - 1) {
+            int s = Long.numberOfTrailingZeros(c);
+            delta -= table[(kings & (1L << s)) != 0 ? opponent + 2 : opponent][s];
+        }
+        return delta;
+    }
+
+    /**
+     * Plays move i of the given list on this position.
+     */
+    public void make(MoveList moves, int i) {
+        make(moves.move(i), moves.captured(i));
+    }
+
+    /**
+     * Takes back the last move made on this position.
+     */
+    public void unmake() {
+        ply--;
+        white = whiteStack[ply];
+        black = blackStack[ply];
+        kings = kingsStack[ply];
+        hash = hashStack[ply];
+        score = scoreStack[ply];
+        whiteToMove = !whiteToMove;
+    }
+
+    /**
+     * @return the Zobrist key of this position
+     */
+    public long hash() {
+        return hash;
+    }
+
+    /**
+     * @return the number of moves made since this position was loaded
+     */
+    public int ply() {
+        return ply;
+    }
+
+    /**
+     * @return the square index (0..49) of the given row and column, or -1 for a white (unplayable) square.
+     */
+    public static int square(int row, int col) {
+        return ((row + col) & 1) == 0 ? -1 : row * 5 + col / 2;
+    }
+
+    /**
+     * @return the piece (EMPTY, WHITEPIECE, BLACKPIECE, WHITEKING, BLACKKING) on the given square.
+     */
+    public int getPiece(int square) {
+        long bit = 1L << square;
+        if ((white & bit) != 0) {
+            return (kings & bit) != 0 ? WHITEKING : WHITEPIECE;
+        } else if ((black & bit) != 0) {
+            return (kings & bit) != 0 ? BLACKKING : BLACKPIECE;
+        }
+        return EMPTY;
+    }
+
+    /**
+     * Same as DraughtsState.getPiece(row, col): the piece on the given row and column, EMPTY for white squares.
+     */
+    public int getPiece(int row, int col) {
+        int s = square(row, col);
+        return s < 0 ? EMPTY : getPiece(s);
+    }
+
+    public boolean isWhiteToMove() {
+        return whiteToMove;
+    }
+
+    public long white() {
+        return white;
+    }
+
+    public long black() {
+        return black;
+    }
+
+    public long kings() {
+        return kings;
+    }
+
+    public long whiteMen() {
+        return white & ~kings;
+    }
+
+    public long blackMen() {
+        return black & ~kings;
+    }
+
+    public long whiteKings() {
+        return white & kings;
+    }
+
+    public long blackKings() {
+        return black & kings;
+    }
+
+    public long empty() {
+        return BOARD & ~(white | black);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Position)) {
+            return false;
+        }
+        Position p = (Position) o;
+        return white == p.white && black == p.black && kings == p.kings && whiteToMove == p.whiteToMove;
+    }
+
+    @Override
+    public int hashCode() {
+        long h = white * 31 + black * 17 + kings * 7 + (whiteToMove ? 1 : 0);
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * @return a 10x10 text diagram of this position (w/b for men, W/B for kings).
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int row = 0; row < 10; row++) {
+            for (int col = 0; col < 10; col++) {
+                sb.append(".wbWB".charAt(getPiece(row, col)));
+            }
+            sb.append('\n');
+        }
+        sb.append(whiteToMove ? "white" : "black").append(" to move");
+        return sb.toString();
+    }
+}
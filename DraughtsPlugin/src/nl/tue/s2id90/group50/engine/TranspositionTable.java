@@ -0,0 +1,105 @@
+package nl.tue.s2id90.group50.engine;
+
+import java.util.Arrays;
+
+/**
+ * Fixed size transposition table backed by a single long[]. Every index holds two entries: a depth-preferred entry that
+ * is only overwritten by searches that are at least as deep, and an always-replace entry that takes everything else.
+ * An entry is two longs, the Zobrist key and the packed data:
+ * <ul>
+ * <li>bits 0-31: score</li>
+ * <li>bits 32-39: remaining search depth</li>
+ * <li>bits 40-41: bound type (EXACT, LOWER or UPPER)</li>
+ * <li>bits 42-59: best move as encoded by MoveList, 0 if none</li>
+ * <li>bit 63: set for every stored entry</li>
+ * </ul>
+ * The key is stored xor-ed with the data, so an entry that is torn by a concurrent write simply does not match.
+ *
+ * @author Jeroen, Andreas
+ */
+public final class TranspositionTable {
+
+    /** the score is the exact value of the position **/
+    public static final int EXACT = 0;
+    /** the value of the position is at least the score (the search failed high) **/
+    public static final int LOWER = 1;
+    /** the value of the position is at most the score (the search failed low) **/
+    public static final int UPPER = 2;
+
+    private static final long USED = 1L << 63;
+
+    private final long[] table;
+    private final int mask; // number of indices - 1
+
+    /**
+     * Creates a table of at most the given size; the number of entries is rounded down to a power of two.
+     */
+    public TranspositionTable(int megabytes) {
+        long entries = Math.max(2, ((long) megabytes << 20) / 16);
+        int indices = Integer.highestOneBit((int) Math.min(entries / 2, 1 << 28));
+        table = new long[indices * 4];
+        mask = indices - 1;
+    }
+
+    /**
+     * @return the data stored for the given key, or 0 if the table does not contain the key.
+     */
+    public long probe(long key) {
+        int i = ((int) key & mask) << 2;
+        long data = table[i + 1];
+        if ((table[i] ^ data) == key && data != 0) {
+            return data;
+        }
+        data = table[i + 3];
+        if ((table[i + 2] ^ data) == key && data != 0) {
+            return data;
+        }
+        return 0L;
+    }
+
+    /**
+     * Stores the result of a search.
+     *
+     * @param key Zobrist key of the position
+     * @param depth remaining depth of the search, at least 0
+     * @param bound EXACT, LOWER or UPPER
+     * @param score value found by the search
+     * @param move best move found, 0 if none
+     */
+    public void store(long key, int depth, int bound, int score, int move) {
+        long data = USED | ((long) move << 42) | ((long) bound << 40) | ((long) Math.min(depth, 255) << 32)
+                | (score & 0xFFFFFFFFL);
+        int i = ((int) key & mask) << 2;
+        long old = table[i + 1];
+        if (depth >= depth(old) || (table[i] ^ old) == key) {
+            table[i] = key ^ data;
+            table[i + 1] = data;
+        } else {
+            table[i + 2] = key ^ data;
+            table[i + 3] = data;
+        }
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        Arrays.fill(table, 0L);
+    }
+
+    public static int score(long data) {
+        return (int) data;
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> 32) & 0xFF;
+    }
+
+    public static int bound(long data) {
+        return (int) (data >>> 40) & 0x3;
+    }
+
+    public static int move(long data) {
+        return (int) (data >>> 42) & 0x3FFFF;
+    }
+}
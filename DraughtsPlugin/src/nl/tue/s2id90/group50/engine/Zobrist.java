@@ -0,0 +1,56 @@
+package nl.tue.s2id90.group50.engine;
+
+import java.util.Random;
+
+/**
+ * Zobrist keys for draughts positions: one random 64-bit number for every piece type on every square and one for
+ * black to move. The key of a position is the xor of the numbers of everything on it.
+ *
+ * @author Jeroen, Andreas
+ */
+public final class Zobrist {
+
+    /** index of the piece types in PIECE **/
+    public static final int WHITE_MAN = 0, BLACK_MAN = 1, WHITE_KING = 2, BLACK_KING = 3;
+
+    /** PIECE[type][square] is the key of a piece of the given type on the given square **/
+    public static final long[][] PIECE = new long[4][Position.SQUARES];
+    /** key that is added when black is to move **/
+    public static final long BLACK_TO_MOVE;
+
+    static {
+        Random random = new Random(2090L);
+        for (long[] keys : PIECE) {
+            for (int s = 0; s < keys.length; s++) {
+                keys[s] = random.nextLong();
+            }
+        }
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * Computes the key of a position from scratch.
+     */
+    public static long hash(Position pos) {
+        long key = pos.whiteToMove ? 0L : BLACK_TO_MOVE;
+        key ^= hash(pos.white & ~pos.kings, PIECE[WHITE_MAN]);
+        key ^= hash(pos.black & ~pos.kings, PIECE[BLACK_MAN]);
+        key ^= hash(pos.white & pos.kings, PIECE[WHITE_KING]);
+        key ^= hash(pos.black & pos.kings, PIECE[BLACK_KING]);
+        return key;
+    }
+
+    /**
+     * @return the xor of the keys of all squares in the mask
+     */
+    static long hash(long mask, long[] keys) {
+        long key = 0L;
+        for (; mask != 0; mask &= mask - 1) {
+            key ^= keys[Long.numberOfTrailingZeros(mask)];
+        }
+        return key;
+    }
+}
@@ -0,0 +1,841 @@
+package nl.tue.s2id90.group50.own_bots;
+
+import static java.lang.Integer.MAX_VALUE;
+import static java.lang.Integer.MIN_VALUE;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import nl.tue.s2id90.draughts.DraughtsState;
+import nl.tue.s2id90.draughts.player.DraughtsPlayer;
+import nl.tue.s2id90.group50.AIStoppedException;
+import nl.tue.s2id90.group50.DraughtsNode;
+import nl.tue.s2id90.group50.engine.EndgameDatabase;
+import nl.tue.s2id90.group50.engine.EndgameGenerator;
+import nl.tue.s2id90.group50.engine.EvaluationCache;
+import nl.tue.s2id90.group50.engine.MoveGenerator;
+import nl.tue.s2id90.group50.engine.MoveList;
+import nl.tue.s2id90.group50.engine.Position;
+import nl.tue.s2id90.group50.engine.TranspositionTable;
+import org10x10.dam.game.DamConstants;
+import org10x10.dam.game.Move;
+
+/**
+ * Iterative deepening alphabeta search shared by our bots. The DraughtsState given to getMove is converted into a
+ * bitboard Position once, after which the whole search runs on that position with the native MoveGenerator and a
+ * preallocated move list and best move slot per ply. Only the best root move is translated back into an org10x10
+ * Move, so apart from the evaluation function the search does not allocate any objects per node. The exception are
+ * the split nodes of the Young Brothers Wait search, which allocate a small task object per younger brother, about
+ * 15 bytes per node on average. The per-move report shows the number of bytes allocated by all search
+ * threads, the calling thread, the Lazy SMP helpers and the threads of the Young Brothers Wait pool, to keep it that
+ * way.
+ *
+ * <p>
+ * Results of the search are kept in a TranspositionTable that lives as long as the player, so positions that are
+ * reached again, in the same iteration, a later iteration or a later move, are not searched twice. In the same way
+ * an optional EvaluationCache in front of evaluate keeps the evaluations of the leaves, which are reached again
+ * through transpositions and in every iteration.
+ * </p>
+ *
+ * <p>
+ * With more than one thread the player runs a Lazy SMP search: helper threads run the same iterative deepening
+ * search on their own copy of the root position, starting at staggered depths, and only communicate through the
+ * shared transposition table. The main thread still determines the move that is played.
+ * </p>
+ *
+ * <p>
+ * Alternatively the threads can run a Young Brothers Wait search on a ForkJoinPool, see YoungBrothersSearch.
+ * </p>
+ *
+ * <p>
+ * Every iteration can start with an aspiration window around the value of the previous iteration; when the value
+ * falls outside the window it is widened and the iteration is repeated. Inside the search, principal variation search
+ * checks every move after the first with a null window.
+ * </p>
+ *
+ * <p>
+ * The search can be made selective with late move reductions, futility pruning, reverse futility pruning and
+ * razoring, each switched on by a player through its hook. They only apply in null window nodes, so they need
+ * principal variation search or MTD(f) to have any effect.
+ * </p>
+ *
+ * <p>
+ * Instead, a player can use MTD(f) as driver: every iteration then consists of null window searches only, starting
+ * at the value of the previous iteration, until the lower and upper bound on the value meet. The searches fail soft,
+ * so every search moves a bound to the value it returned, and the transposition table keeps the work of the previous
+ * searches.
+ * </p>
+ *
+ * <p>
+ * With a time budget per move the player stops by itself instead of waiting for the GUI. After every iteration the
+ * effective branching factor, the ratio of the node counts of the last two iterations, predicts how long the next
+ * iteration takes; an iteration that can not finish within the budget is not started. When the best move changes
+ * in consecutive iterations the time limit is extended, up to MAX_EXTENSION times the budget.
+ * </p>
+ *
+ * <p>
+ * For benchmarks the search can instead be limited to a fixed depth or a fixed number of nodes, which does not depend
+ * on the clock: with one thread the same position then always gives the same move, value and node count, so two bots
+ * or two versions of a bot can be compared exactly. The time budget is ignored in these modes, a stop of the GUI is
+ * not.
+ * </p>
+ *
+ * <p>
+ * With endgame databases of the EndgameGenerator, see setEndgameDatabase, every node below the root with few enough
+ * pieces is looked up in the EndgameDatabase, and a position that is found gets its exact value without being
+ * searched. Won positions are worth ENDGAME_WIN minus a penalty for every piece, man and ply to conversion that is
+ * left, so the winner converts as soon as possible and the loser holds out as long as possible. The report shows the
+ * probes, the share that was found and the average time of a probe.
+ * </p>
+ *
+ * <p>
+ * Subclasses provide the evaluation function and can switch on the search options of the original bots.
+ * </p>
+ *
+ * @author Jeroen, Andreas
+ */
+public abstract class AlphaBetaPlayer extends DraughtsPlayer implements DamConstants {
+
+    final static int MAXSEARCHDEPTH = 200;
+
+    /**
+     * When true, getMove checks the native move generator against DraughtsState.getMoves() in every root position.
+     */
+    static final boolean VERIFY_MOVES = false;
+
+    /** size of the transposition table in megabytes **/
+    static final int TT_MEGABYTES = 16;
+
+    /** the time limit of a move is never extended beyond this factor times the budget **/
+    static final double MAX_EXTENSION = 2.0;
+    /** fraction of the budget added to the time limit for every iteration in a row that changed the best move **/
+    static final double CHANGE_EXTENSION = 0.5;
+    /**
+     * upper bound of the branching factor used for the prediction; iterations that were answered from the
+     * transposition table are too small to measure it
+     */
+    static final double MAX_BRANCHING_FACTOR = 8.0;
+    /** factor by which the aspiration window grows after the value fell outside of it **/
+    static final int ASPIRATION_GROWTH = 4;
+    /**
+     * value of a position that is won according to the endgame database, before the penalties for the way to the win;
+     * below the values our evaluations give a game that is over.
+     */
+    static final int ENDGAME_WIN = Integer.MAX_VALUE / 4;
+
+    int bestValue = 0;
+    long visitedStates; // measure for states checked, summed over all threads
+    private long aspirationResearches; // iterations that were repeated because the value was outside the window
+    private long mtdfSearches; // null window searches of the MTD(f) driver
+
+    final Position position = new Position(); // the root position
+    // best root move found by the last completed iteration, in MoveList encoding
+    private int rootMove;
+    private long rootCaptured;
+    final Search search = new Search(this); // search of the main thread
+    TranspositionTable tt; // created on the first call of getMove
+
+    /**
+     * size of the evaluation cache in megabytes, set with setEvaluationCache or the system property
+     * group50.evalcache; 0, the default, switches the cache off. Our evaluations are about as fast as a cache miss,
+     * so the cache only pays off for an expensive evaluation.
+     */
+    private int evaluationCacheMegabytes = Math.max(0, Integer.getInteger("group50.evalcache", 0));
+    EvaluationCache evaluationCache; // created by getMove, null when switched off
+
+    /**
+     * number of search threads, set with setThreads or the system property group50.threads.
+     */
+    private int threads = Math.max(1, Integer.getInteger("group50.threads", 1));
+    private Search[] helpers = new Search[0];
+    private ExecutorService pool;
+    private final List<Thread> searchThreads = new ArrayList<>(); // of the helpers and the ybw pool, see allocatedBytes
+
+    /**
+     * whether the threads run a Young Brothers Wait search instead of Lazy SMP, set with setYoungBrothersWait or the
+     * system property group50.ybw.
+     */
+    private boolean youngBrothersWait = Boolean.getBoolean("group50.ybw");
+    private YoungBrothersSearch ybw;
+
+    /**
+     * whether the iterations use the MTD(f) driver, set with setMtdf or the system property group50.mtdf.
+     */
+    private boolean mtdf = Boolean.getBoolean("group50.mtdf");
+
+    /**
+     * directory of the endgame databases, set with setEndgameDatabase or the system property group50.egdb; null, the
+     * default, does not probe any.
+     */
+    private String endgameDirectory = System.getProperty("group50.egdb");
+    /**
+     * size of the cache of decompressed database blocks in megabytes, set with setEndgameCache or the system property
+     * group50.egdbcache.
+     */
+    private int endgameCacheMegabytes = Math.max(1, Integer.getInteger("group50.egdbcache", 16));
+    EndgameDatabase endgame; // opened by getMove, null when there is none
+
+    /**
+     * boolean that indicates that the GUI asked the player to stop thinking. It is read by all search threads and only
+     * cleared at the start of getMove, so a stop can not get lost between two iterations.
+     */
+    volatile boolean stopped;
+    private volatile long stopTime; // System.nanoTime() of the last call of stop()
+    private long maxStopLatency; // longest time between stop() and the return of getMove, in nanoseconds
+
+    /**
+     * time budget per move in milliseconds, set with setMoveTime or the system property group50.movetime; 0 leaves
+     * stopping to the GUI.
+     */
+    private long moveTime = Math.max(0, Long.getLong("group50.movetime", 0L));
+    /** System.nanoTime() at which the current search has to stop, 0 if there is no deadline **/
+    private volatile long deadline;
+
+    /**
+     * fixed search depth, set with setDepth or the system property group50.depth; getMove returns as soon as the
+     * iteration of this depth is complete. 0 searches until the player is stopped.
+     */
+    private int fixedDepth = Math.max(0, Integer.getInteger("group50.depth", 0));
+    /**
+     * fixed number of nodes, set with setNodes or the system property group50.nodes; the iteration that reaches it is
+     * abandoned and the move of the previous iteration is played. 0 for no limit.
+     */
+    private long fixedNodes = Math.max(0, Long.getLong("group50.nodes", 0L));
+    /**
+     * number of visited states after which a search stops, Long.MAX_VALUE if there is none. It is checked together
+     * with the stop flags, see nodeLimitReached.
+     */
+    volatile long nodeLimit = Long.MAX_VALUE;
+
+    AlphaBetaPlayer(String icon) {
+        super(icon);
+    }
+
+    /**
+     * Sets the number of threads used by getMove; 1 searches on the calling thread only.
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Sets the time budget per move in milliseconds; 0 searches until the GUI calls stop().
+     */
+    public void setMoveTime(long moveTime) {
+        this.moveTime = Math.max(0, moveTime);
+    }
+
+    /**
+     * Sets the fixed search depth; 0 searches until the player is stopped or runs out of time.
+     */
+    public void setDepth(int depth) {
+        this.fixedDepth = Math.max(0, depth);
+    }
+
+    /**
+     * Sets the fixed number of nodes per move; 0 for no limit.
+     */
+    public void setNodes(long nodes) {
+        this.fixedNodes = Math.max(0, nodes);
+    }
+
+    /**
+     * Selects the Young Brothers Wait search (true) or the sequential/Lazy SMP search (false).
+     */
+    public void setYoungBrothersWait(boolean youngBrothersWait) {
+        this.youngBrothersWait = youngBrothersWait;
+    }
+
+    /**
+     * Sets the size of the evaluation cache in megabytes; 0 evaluates every leaf again.
+     */
+    public void setEvaluationCache(int megabytes) {
+        this.evaluationCacheMegabytes = Math.max(0, megabytes);
+    }
+
+    /**
+     * Selects the MTD(f) driver (true) or the window search of the player (false) for the iterations.
+     */
+    public void setMtdf(boolean mtdf) {
+        this.mtdf = mtdf;
+    }
+
+    /**
+     * Sets the directory of the endgame databases to probe; null probes none.
+     */
+    public void setEndgameDatabase(String directory) {
+        this.endgameDirectory = directory;
+    }
+
+    /**
+     * Sets the size of the cache of decompressed endgame database blocks in megabytes.
+     */
+    public void setEndgameCache(int megabytes) {
+        this.endgameCacheMegabytes = Math.max(1, megabytes);
+    }
+
+    /**
+     * A method that evaluates the given position, positive values are good for white.
+     */
+    abstract int evaluate(Position pos);
+
+    /**
+     * @return the piece-square table of which the positions of the search maintain the score incrementally, see
+     * Position.setPieceSquareTable, or null when evaluate does not use it.
+     */
+    int[][] pieceSquareTable() {
+        return null;
+    }
+
+    /**
+     * @return whether the leaves of the search are evaluated after a quiescence search of the captures, so the
+     * evaluated positions are quiet.
+     */
+    boolean quiescenceSearch() {
+        return false;
+    }
+
+    /**
+     * @return whether the best root move of the previous iteration is searched first.
+     */
+    boolean previousBestFirst() {
+        return false;
+    }
+
+    /**
+     * @return whether the moves after the first are searched with a null window first (principal variation search).
+     */
+    boolean principalVariationSearch() {
+        return false;
+    }
+
+    /**
+     * @return the distance between the value of the previous iteration and the bounds of the first window of the next
+     * iteration, 0 to search every iteration with a full window.
+     */
+    int aspirationWindow() {
+        return 0;
+    }
+
+    /**
+     * @return whether late quiet moves are searched with reduced depth first (late move reductions).
+     */
+    boolean lateMoveReductions() {
+        return false;
+    }
+
+    /**
+     * @return how far the evaluation must be below alpha (above beta for black) one ply above the leaves before the
+     * node is cut off without searching its quiet moves, 0 to switch futility pruning off.
+     */
+    int futilityMargin() {
+        return 0;
+    }
+
+    /**
+     * @return how far the evaluation must be above beta (below alpha for black), per ply of remaining depth, before a
+     * node close to the leaves is cut off without searching it, 0 to switch reverse futility pruning off.
+     */
+    int reverseFutilityMargin() {
+        return 0;
+    }
+
+    /**
+     * @return how far the evaluation must be below alpha (above beta for black) two plies above the leaves before the
+     * node is searched one ply less deep to see whether it can be cut off, 0 to switch razoring off.
+     */
+    int razorMargin() {
+        return 0;
+    }
+
+    /**
+     * @return whether the iterations use MTD(f) instead of a (aspiration) window search; MTD(f) depends on the
+     * transposition table.
+     */
+    boolean useMtdf() {
+        return mtdf;
+    }
+
+    /**
+     * @return whether search results are stored in and taken from the transposition table.
+     */
+    boolean useTranspositionTable() {
+        return true;
+    }
+
+    @Override
+    public Move getMove(DraughtsState s) {
+        Move bestMove = null;
+        bestValue = 0;
+        int depth = 0;
+        visitedStates = 0;
+        aspirationResearches = 0;
+        mtdfSearches = 0;
+        stopped = false; // a stop that arrived after the previous move was returned
+        DraughtsNode node = new DraughtsNode(s);    // the root of the search tree
+        position.load(s).setPieceSquareTable(pieceSquareTable());
+        search.reset(position);
+        if (tt == null && useTranspositionTable()) {
+            tt = new TranspositionTable(TT_MEGABYTES);
+        }
+        if (evaluationCacheMegabytes == 0) {
+            evaluationCache = null;
+        } else if (evaluationCache == null || evaluationCache.megabytes() != evaluationCacheMegabytes) {
+            evaluationCache = new EvaluationCache(evaluationCacheMegabytes);
+        }
+        openEndgameDatabase();
+        if (youngBrothersWait && (ybw == null || ybw.threads != threads)) {
+            if (ybw != null) {
+                ybw.shutdown();
+            }
+            ybw = new YoungBrothersSearch(this, threads);
+        }
+        if (ybw != null) {
+            ybw.resetCounters();
+        }
+        long startTime = System.nanoTime();
+        Map<Long, Long> startAllocated = allocatedBytes();
+        long depthTime = 0; // time at which the last iteration completed
+        int completed = 0; // depth of the last completed iteration
+        boolean fixed = fixedDepth > 0 || fixedNodes > 0;
+        long budget = fixed ? 0L : moveTime * 1000000L;
+        nodeLimit = Long.MAX_VALUE;
+        long limit = budget; // time limit, extended while the best move keeps changing
+        deadline = budget > 0 ? startTime + limit : 0L;
+        long iterationNodes = 0, iterationTime; // nodes and time of the last completed iteration
+        double branchingFactor = 0;
+        int changes = 0; // number of last iterations that changed the best move
+        Future<?>[] running = startHelpers();
+
+        if (VERIFY_MOVES && !MoveGenerator.matches(s)) {
+            System.err.println("move generator does not match DraughtsState in\n" + position);
+        }
+
+        try {
+            while (!stopped && depth < MAXSEARCHDEPTH && (fixedDepth == 0 || depth < fixedDepth)) {
+                // implements iterative deepening up till MAXSEARCHDEPTH
+                depth++;
+                // the first iteration always completes, so there is a move to play
+                nodeLimit = fixedNodes > 0 && depth > 1 ? fixedNodes : Long.MAX_VALUE;
+                long nodes = mainNodes();
+                int previousMove = rootMove;
+                long previousCaptured = rootCaptured;
+
+                // compute bestMove and bestValue in a call to alphabeta
+                search.newIteration();
+                if (useMtdf()) {
+                    bestValue = mtdf(node, bestValue, depth);
+                } else if (depth > 1 && aspirationWindow() > 0) {
+                    bestValue = aspirationSearch(node, bestValue, depth);
+                } else {
+                    bestValue = alphaBeta(node, MIN_VALUE, MAX_VALUE, depth);
+                }
+
+                // store the bestMove found uptill now
+                // NB this is not done in case of an AIStoppedException in alphaBeat()
+                bestMove = node.getBestMove();
+                long time = System.nanoTime() - startTime;
+                nodes = mainNodes() - nodes;
+                if (iterationNodes > 0) {
+                    branchingFactor = Math.min(Math.max(1.0, nodes / (double) iterationNodes), MAX_BRANCHING_FACTOR);
+                }
+                iterationTime = time - depthTime;
+                iterationNodes = nodes;
+                depthTime = time;
+                completed = depth;
+
+                if (budget > 0) {
+                    // every iteration in a row that changes the best move extends the limit, a stable one resets it
+                    boolean changed = depth > 1 && (rootMove != previousMove || rootCaptured != previousCaptured);
+                    changes = changed ? changes + 1 : 0;
+                    limit = Math.min(budget + (long) (changes * CHANGE_EXTENSION * budget),
+                            (long) (MAX_EXTENSION * budget));
+                    deadline = startTime + limit;
+                    // do not start an iteration that is not expected to finish
+                    if (time + (long) (iterationTime * Math.max(branchingFactor, 1.0)) > limit) {
+                        break;
+                    }
+                }
+            }
+        } catch (AIStoppedException ex) { /* nothing to do */ } finally {
+            stopHelpers(running);
+        }
+
+        visitedStates = search.visitedStates;
+        long[] n = new long[Search.COUNTERS];
+        search.addCounters(n);
+        for (Search helper : helpers) {
+            visitedStates += helper.visitedStates;
+            helper.addCounters(n);
+        }
+        if (youngBrothersWait) {
+            visitedStates += ybw.visitedStates();
+            ybw.addCounters(n);
+        }
+        long evaluations = n[Search.EVALUATION_HITS] + n[Search.EVALUATION_MISSES];
+        long nodesPerSecond = visitedStates * 1000000000L / Math.max(1, System.nanoTime() - startTime);
+        long allocated = allocatedSince(startAllocated);
+        long stopLatency = stopped ? System.nanoTime() - stopTime : 0L;
+        maxStopLatency = Math.max(maxStopLatency, stopLatency);
+        long timeUsed = System.nanoTime() - startTime;
+        deadline = 0L;
+        nodeLimit = Long.MAX_VALUE;
+
+        if (bestMove == null) {
+            // When no best move is set, return a random valid move
+            System.err.println("no valid move found!");
+            return getRandomValidMove(s);
+        } else {
+            // print the results for debugging reasons
+            System.err.format(
+                    "%s: depth = %2d, best move = %5s, value = %d\n, discovered = %8d, threads = %d (%s), nodes/s = %d, "
+                    + "time to depth %d = %d ms, allocated = %d bytes (%.3f per node), "
+                    + "stop latency = %d us (max %d us)\n, time = %d ms of %s, branching factor = %.2f\n"
+                    + ", first move cutoffs = %.1f%%, pvs re-searches = %d, aspiration re-searches = %d"
+                    + ", mtd(f) searches = %d, quiescence nodes = %d\n, reductions = %d (%d searched again), "
+                    + "pruned = %d, evaluation cache hits = %d of %d (%.1f%%)\n%s",
+                    this.getClass().getSimpleName(), depth, bestMove, bestValue, visitedStates, threads,
+                    youngBrothersWait ? "ybw" : "lazy smp", nodesPerSecond, completed, depthTime / 1000000,
+                    allocated, allocated / (double) Math.max(1, visitedStates), stopLatency / 1000,
+                    maxStopLatency / 1000, timeUsed / 1000000,
+                    fixed ? limits() : budget > 0 ? moveTime + " ms (limit " + limit / 1000000 + " ms)" : "no budget",
+                    branchingFactor,
+                    100.0 * n[Search.FIRST_MOVE_CUTOFFS] / Math.max(1, n[Search.CUTOFFS]), n[Search.RESEARCHES],
+                    aspirationResearches, mtdfSearches, n[Search.QUIESCENCE_NODES], n[Search.REDUCTIONS],
+                    n[Search.REDUCED_RESEARCHES], n[Search.PRUNED], n[Search.EVALUATION_HITS], evaluations,
+                    100.0 * n[Search.EVALUATION_HITS] / Math.max(1, evaluations), endgameReport()
+            );
+            return bestMove;
+        }
+    }
+
+    /**
+     * This method's return value is displayed in the AICompetition GUI.
+     *
+     * @return the value for the draughts state s as it is computed in a call to getMove(s).
+     */
+    @Override
+    public Integer getValue() {
+        return bestValue;
+    }
+
+    /**
+     * Tries to make alphabeta search stop. Search should be implemented such that it throws an AIStoppedException when
+     * boolean stopped is set to true;
+     */
+    @Override
+    public void stop() {
+        stopTime = System.nanoTime();
+        stopped = true;
+    }
+
+    /**
+     * @return whether the search has to stop, because the GUI asked for it or because the time limit of the move has
+     * passed.
+     */
+    boolean outOfTime() {
+        long d = deadline;
+        return stopped || (d != 0L && System.nanoTime() - d > 0);
+    }
+
+    /**
+     * @return whether the given search reached the node limit: with Young Brothers Wait all threads count together,
+     * otherwise every search counts its own states
+     */
+    boolean nodeLimitReached(Search search) {
+        long limit = nodeLimit;
+        if (limit == Long.MAX_VALUE) {
+            return false;
+        }
+        return youngBrothersWait ? ybw.nodeLimitReached(search) : search.visitedStates >= limit;
+    }
+
+    /**
+     * @return the fixed depth and number of nodes of the search, for the report
+     */
+    private String limits() {
+        if (fixedNodes == 0) {
+            return "depth " + fixedDepth;
+        }
+        return fixedNodes + " nodes" + (fixedDepth > 0 ? " up to depth " + fixedDepth : "");
+    }
+
+    /**
+     * Opens the endgame databases when their directory or cache size changed, and resets their counters.
+     */
+    private void openEndgameDatabase() {
+        if (endgameDirectory == null) {
+            endgame = null;
+            return;
+        }
+        File dir = new File(endgameDirectory);
+        if (endgame == null || !endgame.directory().equals(dir) || endgame.megabytes() != endgameCacheMegabytes) {
+            try {
+                endgame = new EndgameDatabase(dir, endgameCacheMegabytes);
+            } catch (IOException ex) {
+                System.err.println("endgame databases switched off: " + ex.getMessage());
+                endgameDirectory = null;
+                endgame = null;
+                return;
+            }
+        }
+        endgame.resetCounters();
+    }
+
+    /**
+     * @param value the value of pos in the endgame database
+     * @return the exact value of pos, positive values are good for white
+     */
+    int endgameScore(Position pos, int value) {
+        byte v = (byte) value;
+        if (v == EndgameGenerator.DRAW) {
+            return 0;
+        }
+        long pieces = pos.white() | pos.black();
+        int stage = 2 * Long.bitCount(pieces) + Long.bitCount(pieces & ~pos.kings()); // lower after every conversion
+        int score = ENDGAME_WIN - (EndgameGenerator.MAX_DISTANCE + 1) * stage - EndgameGenerator.distance(v);
+        return EndgameGenerator.isWin(v) == pos.isWhiteToMove() ? score : -score;
+    }
+
+    /**
+     * @return the probes of the endgame databases during the last move, for the report
+     */
+    private String endgameReport() {
+        if (endgame == null) {
+            return "";
+        }
+        long probes = endgame.probes(), hits = endgame.hits();
+        return String.format(", endgame probes = %d, found = %d (%.1f%%), blocks decompressed = %d, "
+                + "probe time = %.2f us\n", probes, hits, 100.0 * hits / Math.max(1, probes), endgame.cacheMisses(),
+                endgame.probeNanos() / 1000.0 / Math.max(1, probes));
+    }
+
+    /**
+     * @return the number of nodes visited by the search that determines the move, for the branching factor
+     */
+    private long mainNodes() {
+        return youngBrothersWait ? ybw.visitedStates() : search.visitedStates;
+    }
+
+    /**
+     * returns random valid move in state s, or null if no moves exist.
+     */
+    Move getRandomValidMove(DraughtsState s) {
+        List<Move> moves = s.getMoves();
+        Collections.shuffle(moves);
+        return moves.isEmpty() ? null : moves.get(0);
+    }
+
+    /**
+     * Searches the root position and stores the best move found in node.
+     *
+     * @param node contains the DraughtsState equal to the root position; its best move is set.
+     * @param alpha
+     * @param beta
+     * @param depth maximum recursion depth from current state
+     * @return the computed value of this node
+     * @throws AIStoppedException
+     */
+    int alphaBeta(DraughtsNode node, int alpha, int beta, int depth) throws AIStoppedException {
+        if (youngBrothersWait) {
+            int value = ybw.search(position, alpha, beta, depth);
+            rootMove = ybw.rootMoves.move(ybw.rootBest);
+            rootCaptured = ybw.rootMoves.captured(ybw.rootBest);
+            node.setBestMove(MoveGenerator.toMove(node.getState(), position, ybw.rootMoves, ybw.rootBest));
+            return value;
+        }
+        int value = search.alphaBeta(0, alpha, beta, depth);
+        MoveList moves = search.moves(0);
+        int i = moves.indexOf(search.rootMove, search.rootCaptured);
+        if (i >= 0) {
+            rootMove = search.rootMove;
+            rootCaptured = search.rootCaptured;
+            node.setBestMove(MoveGenerator.toMove(node.getState(), position, moves, i));
+        }
+        return value;
+    }
+
+    /**
+     * Searches the root position with a window around the value of the previous iteration. When the value falls
+     * outside the window, the failing bound is moved ASPIRATION_GROWTH times further away and the root is searched
+     * again, until the value lies inside the window.
+     *
+     * @param guess value of the previous iteration
+     * @return the computed value of the root
+     * @throws AIStoppedException
+     */
+    int aspirationSearch(DraughtsNode node, int guess, int depth) throws AIStoppedException {
+        long lower = aspirationWindow(), upper = lower;
+        while (true) {
+            int alpha = (int) Math.max(MIN_VALUE, guess - lower);
+            int beta = (int) Math.min(MAX_VALUE, guess + upper);
+            int value = alphaBeta(node, alpha, beta, depth);
+            if (value <= alpha && alpha > MIN_VALUE) {
+                lower *= ASPIRATION_GROWTH;
+            } else if (value >= beta && beta < MAX_VALUE) {
+                upper *= ASPIRATION_GROWTH;
+            } else {
+                return value;
+            }
+            aspirationResearches++;
+        }
+    }
+
+    /**
+     * MTD(f): searches the root position with null windows until the value is known.
+     *
+     * @param guess first guess of the value, the value of the previous iteration
+     * @return the computed value of the root
+     * @throws AIStoppedException
+     */
+    int mtdf(DraughtsNode node, int guess, int depth) throws AIStoppedException {
+        int value = guess;
+        int lower = MIN_VALUE, upper = MAX_VALUE;
+        boolean white = position.isWhiteToMove();
+        Move best = null;
+        int bestMove = 0;
+        long bestCaptured = 0L;
+        while (lower < upper) {
+            int beta = value == lower ? value + 1 : value;
+            value = alphaBeta(node, beta - 1, beta, depth);
+            mtdfSearches++;
+            boolean failedHigh = value >= beta;
+            if (failedHigh) {
+                lower = value;
+            } else {
+                upper = value;
+            }
+            // only a search that proves a better bound for the player to move has found the best move
+            if (failedHigh == white) {
+                best = node.getBestMove();
+                bestMove = rootMove;
+                bestCaptured = rootCaptured;
+            }
+        }
+        if (best != null) {
+            node.setBestMove(best);
+            rootMove = search.rootMove = bestMove;
+            rootCaptured = search.rootCaptured = bestCaptured;
+        }
+        return value;
+    }
+
+    /**
+     * Registers a thread of the helpers or the Young Brothers Wait pool, so its allocations are reported.
+     */
+    void searchThreadStarted(Thread t) {
+        synchronized (searchThreads) {
+            searchThreads.add(t);
+        }
+    }
+
+    /**
+     * @return the number of bytes allocated so far by the current thread and the live search threads, by thread id;
+     * empty if the JVM can not measure that.
+     */
+    private Map<Long, Long> allocatedBytes() {
+        Map<Long, Long> bytes = new HashMap<>();
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            long[] ids;
+            synchronized (searchThreads) {
+                searchThreads.removeIf(t -> !t.isAlive());
+                ids = new long[searchThreads.size() + 1];
+                for (int i = 0; i < searchThreads.size(); i++) {
+                    ids[i + 1] = searchThreads.get(i).getId();
+                }
+            }
+            ids[0] = Thread.currentThread().getId();
+            long[] allocated = ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(ids);
+            for (int i = 0; i < ids.length; i++) {
+                if (allocated[i] >= 0) { // -1 for a thread that ended in the meantime
+                    bytes.put(ids[i], allocated[i]);
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * @param start the result of allocatedBytes at the start of the move
+     * @return the number of bytes allocated by the search threads since then; a thread that started since then counts
+     * from 0
+     */
+    private long allocatedSince(Map<Long, Long> start) {
+        long sum = 0;
+        for (Map.Entry<Long, Long> e : allocatedBytes().entrySet()) {
+            sum += e.getValue() - start.getOrDefault(e.getKey(), 0L);
+        }
+        return sum;
+    }
+
+    /**
+     * Starts threads - 1 Lazy SMP helper searches on the root position.
+     *
+     * @return the running helpers
+     */
+    private Future<?>[] startHelpers() {
+        int count = youngBrothersWait ? 0 : threads - 1;
+        if (helpers.length != count) {
+            if (pool != null) {
+                pool.shutdownNow();
+                pool = null;
+            }
+            helpers = new Search[count];
+            for (int i = 0; i < helpers.length; i++) {
+                helpers[i] = new Search(this);
+            }
+            if (helpers.length > 0) {
+                pool = Executors.newFixedThreadPool(helpers.length, r -> {
+                    Thread t = new Thread(r, getClass().getSimpleName() + " helper");
+                    t.setDaemon(true);
+                    searchThreadStarted(t);
+                    return t;
+                });
+            }
+        }
+        Future<?>[] running = new Future<?>[helpers.length];
+        for (int i = 0; i < helpers.length; i++) {
+            Search helper = helpers[i];
+            helper.reset(position);
+            // odd helpers start one ply deeper than the main thread, so the threads spread over two depths
+            int firstDepth = 1 + (i + 1) % 2;
+            running[i] = pool.submit(() -> {
+                try {
+                    for (int depth = firstDepth; !helper.aborted && depth < MAXSEARCHDEPTH; depth++) {
+                        helper.newIteration();
+                        helper.alphaBeta(0, MIN_VALUE, MAX_VALUE, depth);
+                    }
+                } catch (AIStoppedException ex) { /* nothing to do */ }
+            });
+        }
+        return running;
+    }
+
+    /**
+     * Stops the helper searches and waits until they have finished.
+     */
+    private void stopHelpers(Future<?>[] running) {
+        for (Search helper : helpers) {
+            helper.aborted = true;
+        }
+        for (Future<?> f : running) {
+            try {
+                f.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException ex) {
+                System.err.println("helper search failed: " + ex.getCause());
+            }
+        }
+    }
+}
@@ -31,33 +31,54 @@ class BoardInfo {
 public class BadAss extends DraughtsPlayer {
     
     final static int MAXSEARCHDEPTH = 20;
+    final static int QUIESCENCEDEPTH = 16; // maximum number of captures followed after a leaf
 
     private int bestValue = 0;
     int visitedStates; // measure for states checked
+    int quiescenceStates; // states checked by the quiescence search
     private Move[] sorted_Moves;
     private boolean sort = false;
     /**
      * boolean that indicates that the GUI asked the player to stop thinking.
      */
-    private boolean stopped;
+    private volatile boolean stopped;
+
+    private final SearchLimits limits = new SearchLimits(); // fixed depth and number of nodes, for benchmarks
 
     public BadAss() {
         super("badass.jpg");
     }
 
+    /**
+     * Sets the fixed search depth; 0 searches until the player is stopped.
+     */
+    public void setDepth(int depth) {
+        limits.setDepth(depth);
+    }
+
+    /**
+     * Sets the fixed number of nodes per move; 0 for no limit.
+     */
+    public void setNodes(long nodes) {
+        limits.setNodes(nodes);
+    }
+
     @Override
     public Move getMove(DraughtsState s) {
         Move bestMove = null;
         bestValue = 0;
         int depth = 0;
         visitedStates = 0;
+        quiescenceStates = 0;
+        stopped = false; // a stop that arrived after the previous move was returned
         DraughtsNode node = new DraughtsNode(s);    // the root of the search tree
 //        boolean first = true;
 //        int initial_check_depth = 5;
         try {
-            while (!stopped && depth < MAXSEARCHDEPTH) {
+            while (!stopped && depth < MAXSEARCHDEPTH && limits.deeper(depth)) {
                 // implements iterative deepening up till MAXSEARCHDEPTH
                 depth++;
+                limits.startIteration(depth);
               
                 // compute bestMove and bestValue in a call to alphabeta
                 bestValue = alphaBeta(node, MIN_VALUE, MAX_VALUE, depth);
@@ -74,8 +95,8 @@ public class BadAss extends DraughtsPlayer {
         } else {
             // print the results for debugging reasons
             System.err.format(
-                    "%s: depth = %2d, best move = %5s, value = %d\n, discovered = %8d,",
-                    this.getClass().getSimpleName(), depth, bestMove, bestValue, visitedStates
+                    "%s: depth = %2d, best move = %5s, value = %d\n, discovered = %8d, quiescence = %8d\n",
+                    this.getClass().getSimpleName(), depth, bestMove, bestValue, visitedStates, quiescenceStates
             );
             return bestMove;
         }
@@ -109,39 +130,42 @@ public class BadAss extends DraughtsPlayer {
         return moves.isEmpty() ? null : moves.get(0);
     }
 
-    
-    boolean isQuiet(DraughtsNode node, int alpha, int beta, int depth, int value){
-        boolean quiet = true;
-        DraughtsState state = node.getState();
-        List<Move> possibleMoves = state.getMoves();
-        int val = 0;
-        int max_val = MIN_VALUE;
-        int min_val = MAX_VALUE;
-        int quiet_margin = 150;
-        
-        for (Move move : possibleMoves) {
+    /**
+     * Quiescence search: only capture moves are followed, at most QUIESCENCEDEPTH of them, and the first position in
+     * which the player to move can not capture is evaluated. As capturing is compulsory, there is no stand pat while
+     * the player to move can capture.
+     *
+     * @param state the leaf of the alphabeta search, or a position reached from it by captures
+     * @param qdepth number of captures made since the leaf
+     * @return the value of the position, fail soft
+     */
+    int quiescence(DraughtsState state, int alpha, int beta, int qdepth) {
+        quiescenceStates++;
+        List<Move> moves = state.getMoves();
+        if (qdepth >= QUIESCENCEDEPTH || moves.isEmpty() || !moves.get(0).isCapture()) {
+            return evaluate(state); // stand pat
+        }
+        boolean max = state.isWhiteToMove();
+        int best = max ? MIN_VALUE : MAX_VALUE;
+        for (Move move : moves) {
             state.doMove(move);
-            val = evaluate(new DraughtsNode(state).getState());
+            int value = quiescence(state, alpha, beta, qdepth + 1);
             state.undoMove(move);
-            if (val > max_val) {
-                max_val = val;
-            }
-            if (val < min_val) {
-                min_val = val;
-            }
-        }
-        if (state.isWhiteToMove()){
-            if (Math.abs(Math.abs(value) - Math.abs(max_val)) >= quiet_margin){
-                quiet = false;
-            }
-        }else {
-            if (Math.abs(Math.abs(value) - Math.abs(min_val)) >= quiet_margin){
-                quiet = false;
+            if (max ? value > best : value < best) {
+                best = value;
+                if (max ? best >= beta : best <= alpha) {
+                    return best;
+                }
+                if (max) {
+                    alpha = Math.max(alpha, best);
+                } else {
+                    beta = Math.min(beta, best);
+                }
             }
         }
-        return quiet;
+        return best;
     }
-    
+
     /**
      * Implementation of alphabeta that automatically chooses the white player as maximizing player and the black player
      * as minimizing player.
@@ -155,23 +179,14 @@ public class BadAss extends DraughtsPlayer {
      *
      */
     int alphaBeta(DraughtsNode node, int alpha, int beta, int depth) throws AIStoppedException {
-        boolean quiet = true;
-        if (stopped) { // stops the player when timeLimit is reached
-            stopped = false;
-            throw new AIStoppedException();
+        if (stopped || limits.nodeLimitReached(visitedStates)) { // stopped by the GUI or at the node limit
+            throw AIStoppedException.INSTANCE;
         }
         visitedStates++;
         DraughtsState state = node.getState();
         
         if (depth < 0 || state.isEndState()) {
-            int value = evaluate(state);
-            int quiet_penalty = 500 * ((state.isWhiteToMove()) ? 1 : -1);
-            quiet = isQuiet(node, alpha, beta, depth, value);
-            if (quiet) {
-                return value;
-            }else {
-                return value - quiet_penalty;
-            }
+            return quiescence(state, alpha, beta, 0);
         }
 
         if (state.isWhiteToMove()) {
@@ -227,7 +242,7 @@ public class BadAss extends DraughtsPlayer {
      * <ul> <li><code>DraughtsState state = node.getState()</code>.</li>
      * <li><code> state.doMove(move); .... ; state.undoMove(move);</code></li>
      * <li><code>node.setBestMove(bestMove);</code></li>
-     * <li><code>if(stopped) { stopped=false; throw new AIStoppedException(); }</code></li>
+     * <li><code>if(stopped) { throw AIStoppedException.INSTANCE; }</code></li>
      * </ul>
      * </p>
      *
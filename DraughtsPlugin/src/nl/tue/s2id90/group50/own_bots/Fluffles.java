@@ -1,28 +1,15 @@
 package nl.tue.s2id90.group50.own_bots;
 
-import static java.lang.Integer.MAX_VALUE;
-import static java.lang.Integer.MIN_VALUE;
-import java.util.Collections;
-import java.util.List;
-import nl.tue.s2id90.draughts.DraughtsState;
-import nl.tue.s2id90.draughts.player.DraughtsPlayer;
-import nl.tue.s2id90.group50.AIStoppedException;
-import nl.tue.s2id90.group50.DraughtsNode;
-import org10x10.dam.game.DamConstants;
-import static org10x10.dam.game.DamConstants.BLACKKING;
-import static org10x10.dam.game.DamConstants.BLACKPIECE;
-import static org10x10.dam.game.DamConstants.WHITEKING;
-import static org10x10.dam.game.DamConstants.WHITEPIECE;
-import org10x10.dam.game.Move;
+import nl.tue.s2id90.group50.engine.MoveGenerator;
+import nl.tue.s2id90.group50.engine.Position;
+import nl.tue.s2id90.group50.engine.Zobrist;
 
 /**
  Implementation of the basic required player.
 
  @author Jeroen, Andreas
  */
-public class Fluffles extends DraughtsPlayer implements DamConstants {
-
-    private final static int MAXSEARCHDEPTH = 200;
+public class Fluffles extends AlphaBetaPlayer {
 
     // indicates the worth of occupying a space
     private final static int[][] placeBenefitWhite
@@ -48,324 +35,185 @@ public class Fluffles extends DraughtsPlayer implements DamConstants {
             {00, 55, 00, 60, 00, 70, 00, 55, 00, 50},
             {10, 00, 15, 00, 30, 00, 20, 00, 15, 00}};
 
-    private int bestValue = 0; // best value found thus far
-    private Move bestFirstMove; // best first move found thus far
+    // list of parameters used for evaluation. Change these depending on results from test games
+    private final static int pieceValue = 10000;
+    private final static int kingValue = 30000;
+    private final static int evenDistributionValue = 500; // beneficial to have pieces evenly spread over the board
+    private final static int sideDominationValue = 100; // value to receive for dominating a side (this value is large as it depends on how much it dominates)
+    private final static int middleDominationValue = 130; // value to receive for dominating the middle (this value is large as it depends on how much it dominates)
+    private final static int vFormationValue = 20; // value to receive for mainting a safe/protected V shaped position (this value is large as it depends on the position on the board)
+
+    // men on the three parts of the board: columns 0-2, 3-6 and 7-9
+    private final static long LEFT, MIDDLE, RIGHT;
 
     /**
-     boolean that indicates that the GUI asked the player to stop thinking.
+     The values of the pieces and the benefit of their place, indexed like
+     Zobrist.PIECE, which every position of the search keeps up to date.
      */
-    private boolean stopped;
+    private final static int[][] PIECE_SQUARE = new int[4][Position.SQUARES];
 
-    public Fluffles() {
-        super("Gamma.jpg");
-    }
+    /**
+     Value of dominating a side or the middle with the given difference in men
+     + 20, the squares of the differences looked up instead of computed.
+     */
+    private final static int[] SIDE_DOMINATION = new int[41];
+    private final static int[] MIDDLE_DOMINATION = new int[41];
 
-    @Override
-    public Move getMove(DraughtsState s) {
-        Move bestMove = null;
-        bestValue = 0;
-        int depth = 0;
-        DraughtsNode node = new DraughtsNode(s); // the root of the search tree
-        bestFirstMove = s.getMoves().get(0); // initially set any node to first consider
-        try {
-            while (!stopped && depth < MAXSEARCHDEPTH) {
-                // implements iterative deepening up till MAXSEARCHDEPTH
-                depth++;
-
-                // compute bestMove, bestFirstMove and bestValue in a call to alphabeta
-                bestValue = alphaBeta(node, MIN_VALUE, MAX_VALUE, depth);
-                bestFirstMove = node.getBestMove();
-
-                // store the bestMove found uptill now
-                // NB this is not done in case of an AIStoppedException in alphaBeat()
-                bestMove = node.getBestMove();
+    /**
+     The V-formations below a black piece on square s: the white pieces that
+     are needed in V_MASK[2 * s] and V_MASK[2 * s + 1], and the value they
+     give in V_VALUE.
+     */
+    private final static long[] V_MASK = new long[2 * Position.SQUARES];
+    private final static int[] V_VALUE = new int[2 * Position.SQUARES];
+
+    static {
+        long left = 0, middle = 0, right = 0;
+        for (int s = 0; s < Position.SQUARES; s++) {
+            int row = Position.ROW[s], col = Position.COL[s];
+            if (col <= 2) {
+                left |= 1L << s;
+            } else if (col >= 7) {
+                right |= 1L << s;
+            } else {
+                middle |= 1L << s;
+            }
+
+            PIECE_SQUARE[Zobrist.WHITE_MAN][s] = pieceValue + placeBenefitWhite[row][col] * 10;
+            PIECE_SQUARE[Zobrist.BLACK_MAN][s] = -(pieceValue + placeBenefitBlack[row][col] * 10);
+            PIECE_SQUARE[Zobrist.WHITE_KING][s] = kingValue;
+            PIECE_SQUARE[Zobrist.BLACK_KING][s] = -kingValue;
+
+            // the same cases as the loop over the board that this replaces
+            int full = (9 - row) * (9 - row) * vFormationValue;
+            if (row <= 7) {
+                if (col >= 3) {
+                    vFormation(s, 0, bit(row + 1, col - 1) | bit(row + 2, col - 2), full);
+                } else if (col == 1) {
+                    vFormation(s, 0, bit(row + 1, col - 1), full / 2);
+                }
+                if (col <= 6) {
+                    vFormation(s, 1, bit(row + 1, col + 1) | bit(row + 2, col + 2), full);
+                } else if (col == 8) {
+                    vFormation(s, 1, bit(row + 1, col + 1), full / 2);
+                }
+            } else if (row == 8) {
+                if (col == 1) {
+                    vFormation(s, 0, bit(row + 1, col - 1), full / 2);
+                }
+                if (col == 8) {
+                    vFormation(s, 1, bit(row + 1, col + 1), full / 2);
+                }
             }
-        } catch (Exception ex) { // use any exception, so bot does not crash after unintended exception
-            /* nothing to do */
         }
+        LEFT = left;
+        MIDDLE = middle;
+        RIGHT = right;
 
-        if (bestMove == null) {
-            // When no best move is set, return a random valid move
-            System.err.println("no valid move found!");
-            return getRandomValidMove(s);
-        } else {
-            // print the results for debugging reasons
-            System.err.format(
-                    "%s: depth = %2d, best move = %5s, value = %d\n,",
-                    this.getClass().getSimpleName(), depth, bestMove, bestValue
-            );
-            return bestMove;
+        for (int d = -20; d <= 20; d++) {
+            SIDE_DOMINATION[d + 20] = Integer.signum(d) * sideDominationValue * d * d;
+            MIDDLE_DOMINATION[d + 20] = Integer.signum(d) * middleDominationValue * d * d;
         }
     }
 
-    /**
-     This method's return value is displayed in the AICompetition GUI.
+    private static long bit(int row, int col) {
+        return 1L << Position.square(row, col);
+    }
+
+    private static void vFormation(int s, int i, long mask, int value) {
+        V_MASK[2 * s + i] = mask;
+        V_VALUE[2 * s + i] = value;
+    }
 
-     @return the value for the draughts state s as it is computed in a call to
-     getMove(s).
+    public Fluffles() {
+        super("Gamma.jpg");
+    }
+
+    /**
+     Captures after the leaves of the search are followed by a quiescence
+     search, as these are considered more important, and allow us to always
+     end in a quiet state.
      */
     @Override
-    public Integer getValue() {
-        return bestValue;
+    boolean quiescenceSearch() {
+        return true;
     }
 
     /**
-     Tries to make alphabeta search stop. Search should be implemented such
-     that it throws an AIStoppedException when boolean stopped is set to true;
+     The best move of the previous iteration is checked first to hope for
+     better alpha/beta values that allow more pruning of the search tree.
      */
     @Override
-    public void stop() {
-        stopped = true;
+    boolean previousBestFirst() {
+        return true;
     }
 
     /**
-     returns random valid move in state s, or null if no moves exist.
+     Moves after the first are only searched with a null window, which is
+     enough to show that they are worse than the first.
      */
-    Move getRandomValidMove(DraughtsState s) {
-        List<Move> moves = s.getMoves();
-        Collections.shuffle(moves);
-        return moves.isEmpty() ? null : moves.get(0);
+    @Override
+    boolean principalVariationSearch() {
+        return true;
     }
 
     /**
-     Implementation of alphabeta that automatically chooses the white player
-     as maximizing player and the black player as minimizing player.
-
-     @param node contains DraughtsState and has field to which the best move
-     can be assigned.
-     @param alpha
-     @param beta
-     @param depth maximum recursion depth from current state
-     @return the computed value of this node
-     @throws AIStoppedException
-
+     Iterations start with a window around the previous value that is a tenth
+     of the value of a piece.
      */
-    int alphaBeta(DraughtsNode node, int alpha, int beta, int depth) throws AIStoppedException {
-        DraughtsState state = node.getState();
-        if (state.isWhiteToMove()) { // depends on which colour this bot is
-            return alphaBetaMax(node, alpha, beta, depth, true);
-        } else {
-            return alphaBetaMin(node, alpha, beta, depth, true);
-        }
+    @Override
+    int aspirationWindow() {
+        return 1000;
     }
 
     /**
-     Does an alphabeta computation with the given alpha and beta where the
-     player that is to move in node is the minimizing player.
-
-     <p>
-     Typical pieces of code used in this method are:
-     <ul> <li><code>DraughtsState state = node.getState()</code>.</li>
-     <li><code> state.doMove(move); .... ; state.undoMove(move);</code></li>
-     <li><code>node.setBestMove(bestMove);</code></li>
-     <li><code>if(stopped) { stopped=false; throw new AIStoppedException(); }</code></li>
-     </ul>
-     </p>
-
-     @param node contains DraughtsState and has field to which the best move
-     can be assigned.
-     @param alpha
-     @param beta
-     @param depth maximum recursion Depth
-     @param firstMove indicates whether we are at the root node
-     @return the compute value of this node
-     @throws AIStoppedException thrown whenever the boolean stopped has been
-     set to true.
+     Late quiet moves are searched with reduced depth first, and only
+     searched fully when they turn out to be better than expected.
      */
-    int alphaBetaMin(DraughtsNode node, int alpha, int beta, int depth, boolean firstMove) throws AIStoppedException {
-        if (stopped) { // stops the player when timeLimit is reached
-            stopped = false;
-            throw new AIStoppedException();
-        }
-
-        DraughtsState state = node.getState();
-        if (state.isEndState()) { // when we are in an end state we can not move deeper and immediatly evaluate
-            return evaluate(state);
-        }
-
-        List<Move> possibleMoves = state.getMoves();
-
-        Move bestMove;
-        if (firstMove) { // when we are at the root node set the bestMove to be the bestMove from the previous iteration
-            bestMove = bestFirstMove;
-        } else {
-            bestMove = possibleMoves.get(0);
-            possibleMoves.remove(0);
-        }
-
-        if (bestMove.isCapture()) { // we do not count capturing moves to our depth, as these are considered more important, and allow us to always end in a quiet state
-            depth++;
-        } else if (depth < 0) {
-            return evaluate(state);
-        }
-
-        // checks the bestMove as first move to hope for better beta values that allows more pruning of search tree
-        int foundBeta;
-        state.doMove(bestMove);
-        foundBeta = alphaBetaMax(new DraughtsNode(state), alpha, beta, depth - 1, false);
-        state.undoMove(bestMove);
-        if (beta > foundBeta) {
-            beta = foundBeta;
-            if (beta <= alpha) {
-                return alpha;
-            }
-        }
-
-        // checks all other possible moves in the search tree
-        for (Move move : possibleMoves) {
-            state.doMove(move);
-            foundBeta = alphaBetaMax(new DraughtsNode(state), alpha, beta, depth - 1, false);
-            state.undoMove(move);
-            if (beta > foundBeta) {
-                bestMove = move;
-                beta = foundBeta;
-                if (beta <= alpha) {
-                    return alpha;
-                }
-            }
-        }
-
-        // set the best move and return the found beta
-        node.setBestMove(bestMove);
-        return beta;
+    @Override
+    boolean lateMoveReductions() {
+        return true;
     }
 
-    int alphaBetaMax(DraughtsNode node, int alpha, int beta, int depth, boolean firstMove) throws AIStoppedException {
-        if (stopped) { // stops the player when timeLimit is reached
-            stopped = false;
-            throw new AIStoppedException();
-        }
-
-        DraughtsState state = node.getState();
-        if (state.isEndState()) { // when we are in an end state we can not move deeper and immediatly evaluate
-            return evaluate(state);
-        }
-
-        List<Move> possibleMoves = state.getMoves();
-
-        Move bestMove;
-        if (firstMove) { // when we are at the root node set the bestMove to be the bestMove from the previous iteration
-            bestMove = bestFirstMove;
-        } else {
-            bestMove = possibleMoves.get(0);
-            possibleMoves.remove(0);
-        }
-
-        if (bestMove.isCapture()) { // we do not count capturing moves to our depth, as these are considered more important, and allow us to always end in a quiet state
-            depth++;
-        } else if (depth < 0) {
-            return evaluate(state);
-        }
-
-        // checks the bestMove as first move to hope for better beta values that allows more pruning of search tree
-        int foundAlpha;
-        state.doMove(bestMove);
-        foundAlpha = alphaBetaMin(new DraughtsNode(state), alpha, beta, depth - 1, false);
-        state.undoMove(bestMove);
-        if (alpha < foundAlpha) {
-            alpha = foundAlpha;
-            if (alpha >= beta) {
-                return beta;
-            }
-        }
-
-        // checks all other possible moves in the search tree
-        for (Move move : possibleMoves) {
-            state.doMove(move);
-            foundAlpha = alphaBetaMin(new DraughtsNode(state), alpha, beta, depth - 1, false);
-            state.undoMove(move);
-            if (alpha < foundAlpha) {
-                bestMove = move;
-                alpha = foundAlpha;
-                if (alpha >= beta) {
-                    return beta;
-                }
-            }
-        }
-
-        // set the best move and return the found alpha
-        node.setBestMove(bestMove);
-        return alpha;
+    /**
+     A method that evaluates the given position.
+     */
+    @Override
+    int evaluate(Position pos) {
+        return evaluate(pos, !MoveGenerator.hasMoves(pos));
     }
 
     /**
-     A method that evaluates the given state.
+     The positions of the search maintain the sum of the piece values and
+     place benefits, so evaluate only has to add the other terms.
      */
-    int evaluate(DraughtsState state) {
+    @Override
+    int[][] pieceSquareTable() {
+        return PIECE_SQUARE;
+    }
 
-        // list of parameters used for evaluation. Change these depending on results from test games
-        final int pieceValue = 10000;
-        final int kingValue = 30000;
-        final int evenDistributionValue = 500; // beneficial to have pieces evenly spread over the board
-        final int sideDominationValue = 100; // value to receive for dominating a side (this value is large as it depends on how much it dominates)
-        final int middleDominationValue = 130; // value to receive for dominating the middle (this value is large as it depends on how much it dominates)
-        final int vFormationValue = 20; // value to receive for mainting a safe/protected V shaped position (this value is large as it depends on the position on the board)
+    /**
+     A method that evaluates the given position.
 
-        int value = 0;
-        int piece;
+     @param pos position to evaluate
+     @param endState whether the player to move in pos has no moves left
+     */
+    int evaluate(Position pos, boolean endState) {
+        long whiteMen = pos.whiteMen();
+        long blackMen = pos.blackMen();
 
         // values that indicate how many pieces are on a side of the board
-        int whiteCountLeft = 0;
-        int whiteCountMiddle = 0;
-        int whiteCountRight = 0;
-        int blackCountLeft = 0;
-        int blackCountMiddle = 0;
-        int blackCountRight = 0;
-
-        // saves all pieces received for faster access
-        int[][] board = new int[10][10];
-
-        //Goes over the board, only checking black squares.
-        for (int row = 0; row < 10; row++) {
-            for (int col = ((row + 1) % 2); col < 10; col += 2) {
-                piece = state.getPiece(row, col);
-                switch (piece) {
-
-                case WHITEPIECE:
-                    // counts where it is on the board
-                    if (col <= 2) {
-                        whiteCountLeft++;
-                    } else if (col >= 7) {
-                        whiteCountRight++;
-                    } else {
-                        whiteCountMiddle++;
-                    }
-
-                    board[row][col] = 1;
-                    value += pieceValue + placeBenefitWhite[row][col] * 10;
-                    break;
-
-                case BLACKPIECE:
-                    // counts where it is on the board
-                    if (col <= 2) {
-                        blackCountLeft++;
-                    } else if (col >= 7) {
-                        blackCountRight++;
-                    } else {
-                        blackCountMiddle++;
-                    }
-
-                    board[row][col] = -1;
-                    value -= pieceValue + placeBenefitBlack[row][col] * 10;
-                    break;
-
-                case WHITEKING:
-                    board[row][col] = 1;
-                    value += kingValue;
-                    break;
-
-                case BLACKKING:
-                    board[row][col] = -1;
-                    value -= kingValue;
-                    break;
-                }
-            }
-        }
+        int whiteCountLeft = Long.bitCount(whiteMen & LEFT);
+        int whiteCountMiddle = Long.bitCount(whiteMen & MIDDLE);
+        int whiteCountRight = Long.bitCount(whiteMen & RIGHT);
+        int blackCountLeft = Long.bitCount(blackMen & LEFT);
+        int blackCountMiddle = Long.bitCount(blackMen & MIDDLE);
+        int blackCountRight = Long.bitCount(blackMen & RIGHT);
 
         // when we are at an end state
-        if (state.isEndState()) {
-            if (state.isWhiteToMove()) {
-                if (whiteCountLeft + whiteCountMiddle + whiteCountRight == 0) {
+        if (endState) {
+            if (pos.isWhiteToMove()) {
+                if (whiteMen == 0) {
                     // black won is very low evaluation
                     return Integer.MIN_VALUE / 2;
                 } else {
@@ -373,21 +221,23 @@ public class Fluffles extends DraughtsPlayer implements DamConstants {
                     return 0;
                 }
             } else {
-                if (blackCountLeft + blackCountMiddle + blackCountRight == 0) {
+                if (blackMen == 0) {
                     // white won is very high evaluation
                     return Integer.MAX_VALUE / 2;
                 } else {
                     // we tied
                     return 0;
-                }         
+                }
             }
         }
 
-        
-        
+        // the value of the pieces and their places, maintained by the search (or computed for a position without table)
+        int value = pos.pieceSquareTable() == PIECE_SQUARE
+                ? pos.pieceSquareScore() : pos.pieceSquareScore(PIECE_SQUARE);
+
         // gets 1/3 of the number of pieces each player has
-        int sumWhiteThree = Math.floorDiv(whiteCountLeft + whiteCountMiddle + whiteCountRight, 3);
-        int sumBlackThree = Math.floorDiv(blackCountLeft + blackCountMiddle + blackCountRight, 3);
+        int sumWhiteThree = (whiteCountLeft + whiteCountMiddle + whiteCountRight) / 3;
+        int sumBlackThree = (blackCountLeft + blackCountMiddle + blackCountRight) / 3;
 
         // adds value when the board is evenly spreaded
         if (sumWhiteThree - 1 < whiteCountLeft || whiteCountLeft < sumWhiteThree + 2) {
@@ -411,90 +261,19 @@ public class Fluffles extends DraughtsPlayer implements DamConstants {
         }
 
         // when a player dominates a side/middle, generate value depending on how much it is dominated by
-        if (whiteCountLeft > blackCountLeft) {
-            value += sideDominationValue * Math.pow(whiteCountLeft - blackCountLeft, 2);
-        } else if (whiteCountLeft < blackCountLeft) {
-            value -= sideDominationValue * Math.pow(whiteCountLeft - blackCountLeft, 2);
-        }
-        if (whiteCountRight > blackCountRight) {
-            value += sideDominationValue * Math.pow(whiteCountRight - blackCountRight, 2);
-        } else if (whiteCountRight < blackCountRight) {
-            value -= sideDominationValue * Math.pow(whiteCountRight - blackCountRight, 2);
-        }
-        if (whiteCountMiddle > blackCountMiddle) {
-            value += middleDominationValue * Math.pow(whiteCountMiddle - blackCountMiddle, 2);
-        } else if (whiteCountMiddle < blackCountMiddle) {
-            value -= middleDominationValue * Math.pow(whiteCountMiddle - blackCountMiddle, 2);
-        }
-
-        // a mess of code to determine if there are V-Positions. Many if cases as throwing ArrayIndexOutOfBounds Exception are far more expensive
-        for (int row = 0; row < 10; row++) {
-            for (int col = ((row + 1) % 2); col < 10; col += 2) {
-                if (board[row][col] == -1) {
-                    if (row <= 7) {
-                        if (col >= 3) {
-                            if (board[row + 1][col - 1] == 1 && board[row + 2][col - 2] == 1) {
-                                value += Math.pow(9 - row, 2) * vFormationValue;
-                            }
-                        } else if (col == 1) {
-                            if (board[row + 1][col - 1] == 1) {
-                                value += Math.pow(9 - row, 2) * vFormationValue / 2;
-                            }
-                        }
-                        if (col <= 6) {
-                            if (board[row + 1][col + 1] == 1 && board[row + 2][col + 2] == 1) {
-                                value += Math.pow(9 - row, 2) * vFormationValue;
-                            }
-                        } else if (col == 8) {
-                            if (board[row + 1][col + 1] == 1) {
-                                value += Math.pow(9 - row, 2) * vFormationValue / 2;
-                            }
-                        }
-                    } else if (row == 8) {
-                        if (col == 1) {
-                            if (board[row + 1][col - 1] == 1) {
-                                value += Math.pow(9 - row, 2) * vFormationValue / 2;
-                            }
-                        }
-                        if (col == 8) {
-                            if (board[row + 1][col + 1] == 1) {
-                                value += Math.pow(9 - row, 2) * vFormationValue / 2;
-                            }
-                        }
-                    }
-                } else if (board[row][col] == -1) {
-                    if (row >= 2) {
-                        if (col >= 3) {
-                            if (board[row - 1][col - 1] == -1 && board[row - 2][col - 2] == -1) {
-                                value -= Math.pow(row, 2) * vFormationValue;
-                            }
-                        } else if (col == 1) {
-                            if (board[row - 1][col - 1] == -1) {
-                                value -= Math.pow(row, 2) * vFormationValue / 2;
-                            }
-                        }
-                        if (col <= 6) {
-                            if (board[row - 1][col + 1] == -1 && board[row - 2][col + 2] == -1) {
-                                value -= Math.pow(row, 2) * vFormationValue;
-                            }
-                        } else if (col == 8) {
-                            if (board[row - 1][col + 1] == -1) {
-                                value -= Math.pow(row, 2) * vFormationValue / 2;
-                            }
-                        }
-                    } else if (row != 0) {
-                        if (col == 1) {
-                            if (board[row - 1][col - 1] == -1) {
-                                value -= Math.pow(row, 2) * vFormationValue / 2;
-                            }
-                        }
-                        if (col == 8) {
-                            if (board[row - 1][col + 1] == -1) {
-                                value -= Math.pow(row, 2) * vFormationValue / 2;
-                            }
-                        }
-                    }
-                }
+        value += SIDE_DOMINATION[whiteCountLeft - blackCountLeft + 20];
+        value += SIDE_DOMINATION[whiteCountRight - blackCountRight + 20];
+        value += MIDDLE_DOMINATION[whiteCountMiddle - blackCountMiddle + 20];
+
+        // V-positions: white pieces diagonally below a black piece
+        long white = pos.white();
+        for (long black = pos.black(); black != 0; black &= black - 1) {
+            int i = 2 * Long.numberOfTrailingZeros(black);
+            if (V_MASK[i] != 0 && (white & V_MASK[i]) == V_MASK[i]) {
+                value += V_VALUE[i];
+            }
+            if (V_MASK[i + 1] != 0 && (white & V_MASK[i + 1]) == V_MASK[i + 1]) {
+                value += V_VALUE[i + 1];
             }
         }
 
@@ -0,0 +1,497 @@
+package nl.tue.s2id90.group50.own_bots;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import nl.tue.s2id90.draughts.DraughtsState;
+import nl.tue.s2id90.draughts.player.DraughtsPlayer;
+import nl.tue.s2id90.group50.engine.MoveGenerator;
+import nl.tue.s2id90.group50.engine.MoveList;
+import nl.tue.s2id90.group50.engine.Position;
+import nl.tue.s2id90.group50.engine.Zobrist;
+import static nl.tue.s2id90.group50.own_bots.MonteCarloTree.RESULT_SCALE;
+import static nl.tue.s2id90.group50.own_bots.MonteCarloTree.ROOT;
+import static nl.tue.s2id90.group50.own_bots.MonteCarloTree.UNEXPANDED;
+import org10x10.dam.game.DamConstants;
+import org10x10.dam.game.Move;
+
+/**
+ * Monte Carlo tree search with UCT. Every iteration
+ * <ol>
+ * <li>selects a path from the root, choosing in every node the child with the highest upper confidence bound,</li>
+ * <li>expands the leaf it ends in once that has been visited EXPAND_VISITS times,</li>
+ * <li>plays out a game of at most PLAYOUT_LENGTH plies from there, and</li>
+ * <li>adds the result to every node on the path.</li>
+ * </ol>
+ * A playout that ends because the player to move has no moves is a loss for that player; otherwise the result is the
+ * evaluation of the final position, mapped onto (0, 1). The moves of a playout are random, or with guided playouts
+ * mostly the move with the best evaluation.
+ *
+ * <p>
+ * The search runs on a bitboard Position with make/unmake, and the tree is a MonteCarloTree of primitive arrays, so an
+ * iteration does not create any objects. When the pool is full the leaves are no longer expanded, but the playouts
+ * go on.
+ * </p>
+ *
+ * <p>
+ * The tree is kept between moves: the next getMove looks for its position in the tree, two plies below the previous
+ * root, and continues with the subtree of that node.
+ * </p>
+ *
+ * <p>
+ * With more than one thread every thread runs the iterations of its own Worker, in one of two ways:
+ * <ul>
+ * <li>tree parallel, the default: all workers search one shared tree. A worker adds a virtual loss to every node it
+ * selects, which it takes back when it adds the result, so the other workers prefer other branches meanwhile.</li>
+ * <li>root parallel: every worker searches its own tree, of a part of the nodes, and the visits of the moves of the
+ * roots are added up at the end.</li>
+ * </ul>
+ * The report gives the iterations per second, in total and per thread, to compare the two.
+ * </p>
+ *
+ * @author Jeroen, Andreas
+ */
+public class MonteCarloPlayer extends DraughtsPlayer implements DamConstants {
+
+    /** exploration constant of UCT; sqrt(2) / 2 suits results between 0 and 1 **/
+    static final double EXPLORATION = 0.7;
+    /** number of playouts through a leaf of the tree before it is expanded **/
+    static final int EXPAND_VISITS = 4;
+    /** maximum number of plies of a playout **/
+    static final int PLAYOUT_LENGTH = 20;
+    /** probability that a guided playout plays a random move **/
+    static final double RANDOM_MOVE = 0.1;
+    /** an evaluation of EVALUATION_SCALE is mapped onto a result of about 0.73 **/
+    static final double EVALUATION_SCALE = 100.0;
+    /** plies below the previous root in which getMove looks for its position **/
+    static final int REUSE_PLIES = 2;
+    /** number of iterations between two reads of the clock **/
+    static final int CLOCK_MASK = 255;
+    /** number of lost playouts a worker adds to the nodes it selects in a shared tree **/
+    static final int VIRTUAL_LOSS = 1;
+
+    static final int MAN_VALUE = 100, KING_VALUE = 300;
+    /** value per row that a man has advanced **/
+    static final int ADVANCE_VALUE = 4;
+
+    /** the piece-square table of the evaluation, maintained incrementally by the position **/
+    private static final int[][] PIECE_SQUARE = new int[4][Position.SQUARES];
+
+    static {
+        for (int s = 0; s < Position.SQUARES; s++) {
+            int row = Position.ROW[s];
+            PIECE_SQUARE[Zobrist.WHITE_MAN][s] = MAN_VALUE + ADVANCE_VALUE * (9 - row);
+            PIECE_SQUARE[Zobrist.BLACK_MAN][s] = -(MAN_VALUE + ADVANCE_VALUE * row);
+            PIECE_SQUARE[Zobrist.WHITE_KING][s] = KING_VALUE;
+            PIECE_SQUARE[Zobrist.BLACK_KING][s] = -KING_VALUE;
+        }
+    }
+
+    /**
+     * number of nodes of the tree, set with the system property group50.mctsnodes; with root parallelism they are
+     * divided over the trees of the threads. A tree uses two sets of arrays of 36 bytes per node.
+     */
+    private final int treeNodes = Math.max(1024, Integer.getInteger("group50.mctsnodes", 1 << 19));
+
+    /**
+     * whether the playouts are guided by the evaluation, set with setGuidedPlayouts or the system property
+     * group50.guided.
+     */
+    private boolean guided = Boolean.getBoolean("group50.guided");
+
+    /**
+     * number of search threads, set with setThreads or the system property group50.threads.
+     */
+    private int threads = Math.max(1, Integer.getInteger("group50.threads", 1));
+    /**
+     * whether every thread searches its own tree instead of the shared tree, set with setRootParallel or the system
+     * property group50.rootparallel.
+     */
+    private boolean rootParallel = Boolean.getBoolean("group50.rootparallel");
+    private Worker[] workers = new Worker[0]; // worker 0 runs on the thread that calls getMove
+    private ExecutorService pool;
+
+    /**
+     * time budget per move in milliseconds, set with setMoveTime or the system property group50.movetime; 0 leaves
+     * stopping to the GUI.
+     */
+    private long moveTime = Math.max(0, Long.getLong("group50.movetime", 0L));
+    /** fixed number of iterations per move, set with setNodes or the system property group50.nodes; 0 for none **/
+    private long fixedIterations = Math.max(0, Long.getLong("group50.nodes", 0L));
+
+    /**
+     * boolean that indicates that the GUI asked the player to stop thinking.
+     */
+    private volatile boolean stopped;
+    /** System.nanoTime() at which the current search has to stop, 0 if there is no deadline **/
+    private long deadline;
+
+    private int bestValue = 0;
+    final Position root = new Position().setPieceSquareTable(PIECE_SQUARE); // position of the root of the tree
+    private final MoveList rootMoves = new MoveList();
+
+    /**
+     * The iterations of one thread, with its own position, buffers and random generator, on its own tree or on the
+     * shared tree.
+     */
+    final class Worker implements Runnable {
+
+        final MonteCarloTree tree;
+        private final boolean shared; // whether other workers search the same tree
+        private final Position position = new Position(); // position of the current iteration
+        private final MoveList moves = new MoveList();
+        private final int[] path = new int[Position.MAX_PLY]; // nodes of the current iteration, indexed by ply
+        private final SplittableRandom random;
+        long iterations; // iterations of the current search
+        long share; // number of iterations to run, 0 until the search is stopped
+
+        Worker(MonteCarloTree tree, boolean shared, SplittableRandom random) {
+            this.tree = tree;
+            this.shared = shared;
+            this.random = random;
+        }
+
+        /**
+         * Runs iterations until the player is stopped, the deadline has passed or the share of iterations is done.
+         */
+        @Override
+        public void run() {
+            iterations = 0;
+            long d = deadline;
+            while (!stopped && (share == 0 || iterations < share)) {
+                iterate();
+                iterations++;
+                if (d != 0L && (iterations & CLOCK_MASK) == 0 && System.nanoTime() - d > 0) {
+                    break;
+                }
+            }
+        }
+
+        /**
+         * One iteration: selection, expansion, playout and backpropagation.
+         */
+        void iterate() {
+            MonteCarloTree t = tree;
+            Position pos = position.copyFrom(root);
+            int virtualLoss = shared ? VIRTUAL_LOSS : 0;
+            int node = ROOT;
+            int ply = 0;
+            path[0] = ROOT;
+            while (t.children.get(node) > 0) {
+                node = select(node);
+                if (virtualLoss != 0) {
+                    t.visits.getAndAdd(node, virtualLoss);
+                }
+                pos.make(t.move[node], t.captured[node]);
+                path[++ply] = node;
+            }
+            if (t.children.get(node) == UNEXPANDED
+                    && (node == ROOT || t.visits.get(node) - virtualLoss + 1 >= EXPAND_VISITS)) {
+                MoveGenerator.generate(pos, moves);
+                if (t.expand(node, moves) && t.children.get(node) > 0) {
+                    node = t.firstChild[node];
+                    if (virtualLoss != 0) {
+                        t.visits.getAndAdd(node, virtualLoss);
+                    }
+                    pos.make(t.move[node], t.captured[node]);
+                    path[++ply] = node;
+                }
+            }
+
+            double result = t.children.get(node) == 0 ? (pos.isWhiteToMove() ? 0.0 : 1.0) : playout(pos);
+            long win = Math.round(result * RESULT_SCALE);
+
+            // the player that made the move into the node at ply p moved at ply p - 1
+            boolean whiteMoved = !root.isWhiteToMove();
+            for (int p = 0; p <= ply; p++) {
+                int n = path[p];
+                t.visits.getAndAdd(n, p == 0 ? 1 : 1 - virtualLoss);
+                t.wins.getAndAdd(n, whiteMoved ? win : RESULT_SCALE - win);
+                whiteMoved = !whiteMoved;
+            }
+        }
+
+        /**
+         * @return the child of node with the highest upper confidence bound, or its first child that was never
+         * visited
+         */
+        private int select(int node) {
+            MonteCarloTree t = tree;
+            double logVisits = Math.log(Math.max(1, t.visits.get(node)));
+            int best = -1;
+            double bestBound = Double.NEGATIVE_INFINITY;
+            for (int c = t.firstChild[node], end = c + t.children.get(node); c < end; c++) {
+                long v = t.visits.get(c);
+                if (v == 0) {
+                    return c;
+                }
+                double bound = t.wins.get(c) / (double) RESULT_SCALE / v + EXPLORATION * Math.sqrt(logVisits / v);
+                if (bound > bestBound) {
+                    bestBound = bound;
+                    best = c;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Plays at most PLAYOUT_LENGTH moves from pos, and takes them back.
+         *
+         * @return the result for white: 1 for a win, 0 for a loss, or the mapped evaluation of the final position
+         */
+        double playout(Position pos) {
+            int made = 0;
+            double result = -1;
+            while (made < PLAYOUT_LENGTH) {
+                int n = MoveGenerator.generate(pos, moves);
+                if (n == 0) {
+                    result = pos.isWhiteToMove() ? 0.0 : 1.0;
+                    break;
+                }
+                int i = guided && random.nextDouble() >= RANDOM_MOVE ? bestMove(pos, n) : random.nextInt(n);
+                pos.make(moves, i);
+                made++;
+            }
+            if (result < 0) {
+                result = 1.0 / (1.0 + Math.exp(-evaluate(pos) / EVALUATION_SCALE));
+            }
+            for (; made > 0; made--) {
+                pos.unmake();
+            }
+            return result;
+        }
+
+        /**
+         * @return the index of the move of the first n in moves after which the evaluation is best for the player to
+         * move in pos; ties are broken at random.
+         */
+        private int bestMove(Position pos, int n) {
+            boolean white = pos.isWhiteToMove();
+            int best = 0, ties = 0;
+            int bestScore = Integer.MIN_VALUE;
+            for (int i = 0; i < n; i++) {
+                pos.make(moves, i);
+                int score = white ? evaluate(pos) : -evaluate(pos);
+                pos.unmake();
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = i;
+                    ties = 1;
+                } else if (score == bestScore && random.nextInt(++ties) == 0) {
+                    best = i;
+                }
+            }
+            return best;
+        }
+    }
+
+    public MonteCarloPlayer() {
+        super("wow.jpg");
+    }
+
+    /**
+     * Switches between guided (true) and random (false) playouts.
+     */
+    public void setGuidedPlayouts(boolean guided) {
+        this.guided = guided;
+    }
+
+    /**
+     * Sets the number of threads used by getMove; 1 searches on the calling thread only.
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Selects root parallelism (true) or one tree shared by all threads (false).
+     */
+    public void setRootParallel(boolean rootParallel) {
+        this.rootParallel = rootParallel;
+    }
+
+    /**
+     * Sets the time budget per move in milliseconds; 0 searches until the GUI calls stop().
+     */
+    public void setMoveTime(long moveTime) {
+        this.moveTime = Math.max(0, moveTime);
+    }
+
+    /**
+     * Sets the fixed number of iterations per move, divided over the threads; 0 for no limit.
+     */
+    public void setNodes(long iterations) {
+        this.fixedIterations = Math.max(0, iterations);
+    }
+
+    @Override
+    public Move getMove(DraughtsState s) {
+        stopped = false; // a stop that arrived after the previous move was returned
+        long startTime = System.nanoTime();
+        createWorkers();
+        Position target = Position.of(s);
+        long reused = 0;
+        for (int i = 0; i < workers.length; i++) {
+            MonteCarloTree tree = workers[i].tree;
+            if (i == 0 || tree != workers[0].tree) {
+                int node = tree.find(root, target, REUSE_PLIES);
+                if (node >= 0) {
+                    tree.reroot(node);
+                } else {
+                    tree.clear();
+                }
+                reused += tree.size();
+            }
+        }
+        root.copyFrom(target.setPieceSquareTable(PIECE_SQUARE));
+        deadline = moveTime > 0 ? startTime + moveTime * 1000000L : 0L;
+        for (int i = 0; i < workers.length; i++) {
+            workers[i].share = fixedIterations == 0 ? 0
+                    : fixedIterations / workers.length + (i < fixedIterations % workers.length ? 1 : 0);
+        }
+
+        Future<?>[] running = new Future<?>[workers.length - 1];
+        for (int i = 1; i < workers.length; i++) {
+            running[i - 1] = pool.submit(workers[i]);
+        }
+        workers[0].run();
+        if (fixedIterations == 0) {
+            stopped = true; // the helpers stop with the main worker
+        }
+        for (Future<?> f : running) {
+            try {
+                f.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException ex) {
+                System.err.println("monte carlo worker failed: " + ex.getCause());
+            }
+        }
+        long time = Math.max(1, System.nanoTime() - startTime);
+        long iterations = 0;
+        for (Worker w : workers) {
+            iterations += w.iterations;
+        }
+
+        // play the move that was searched most, over all trees
+        int n = MoveGenerator.generate(root, rootMoves);
+        int best = -1;
+        long bestVisits = 0, bestWins = 0, rootVisits = 0;
+        for (int i = 0; i < n; i++) {
+            long visits = 0, wins = 0;
+            for (int w = 0; w < workers.length; w++) {
+                MonteCarloTree tree = workers[w].tree;
+                if ((w == 0 || tree != workers[0].tree) && tree.children.get(ROOT) == n) {
+                    visits += tree.visits.get(tree.firstChild[ROOT] + i);
+                    wins += tree.wins.get(tree.firstChild[ROOT] + i);
+                }
+            }
+            rootVisits += visits;
+            if (visits > bestVisits) {
+                best = i;
+                bestVisits = visits;
+                bestWins = wins;
+            }
+        }
+        if (best < 0) {
+            System.err.println("no valid move found!");
+            return getRandomValidMove(s);
+        }
+        double winRate = bestWins / (double) RESULT_SCALE / bestVisits;
+        bestValue = (int) Math.round(1000 * (root.isWhiteToMove() ? winRate - 0.5 : 0.5 - winRate));
+        Move bestMove = MoveGenerator.toMove(s, root, rootMoves, best);
+        long perSecond = iterations * 1000000000L / time;
+
+        System.err.format(
+                "%s: iterations = %d, best move = %5s, value = %d\n, visits = %d (%.1f%%), win rate = %.3f, "
+                + "threads = %d (%s), iterations/s = %d (%d per thread)\n, tree = %d nodes of %d, reused = %d nodes, "
+                + "playouts = %s\n",
+                this.getClass().getSimpleName(), iterations, bestMove, bestValue, bestVisits,
+                100.0 * bestVisits / Math.max(1, rootVisits), winRate, workers.length,
+                workers.length == 1 ? "sequential" : rootParallel ? "root parallel" : "tree parallel", perSecond,
+                perSecond / workers.length, treeSize(), treeNodes, reused, guided ? "guided" : "random"
+        );
+        return bestMove;
+    }
+
+    /**
+     * This method's return value is displayed in the AICompetition GUI.
+     *
+     * @return the win rate of the move played, in thousandths above a half for white.
+     */
+    @Override
+    public Integer getValue() {
+        return bestValue;
+    }
+
+    /**
+     * Tries to make the search stop; the workers check the flag before every iteration.
+     */
+    @Override
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * returns random valid move in state s, or null if no moves exist.
+     */
+    Move getRandomValidMove(DraughtsState s) {
+        List<Move> moves = s.getMoves();
+        Collections.shuffle(moves);
+        return moves.isEmpty() ? null : moves.get(0);
+    }
+
+    /**
+     * Evaluates the final position of a playout: the material, with the men worth more the further they advanced.
+     * Positive values are good for white.
+     */
+    int evaluate(Position pos) {
+        return pos.pieceSquareScore();
+    }
+
+    /**
+     * Creates the workers and their trees, unless they already match the number of threads and the parallelism; new
+     * trees start empty.
+     */
+    private void createWorkers() {
+        boolean separate = rootParallel && threads > 1;
+        if (workers.length == threads && (threads == 1 || separate == (workers[0].tree != workers[1].tree))) {
+            return;
+        }
+        if (pool != null) {
+            pool.shutdownNow();
+            pool = null;
+        }
+        SplittableRandom random = new SplittableRandom(2018);
+        MonteCarloTree shared = separate ? null : new MonteCarloTree(treeNodes);
+        workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            MonteCarloTree tree = separate ? new MonteCarloTree(Math.max(1024, treeNodes / threads)) : shared;
+            workers[i] = new Worker(tree, !separate && threads > 1, random.split());
+        }
+        if (threads > 1) {
+            pool = Executors.newFixedThreadPool(threads - 1, r -> {
+                Thread t = new Thread(r, getClass().getSimpleName() + " worker");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    /**
+     * @return the number of nodes in use in all trees
+     */
+    private int treeSize() {
+        int size = 0;
+        for (int i = 0; i < workers.length; i++) {
+            if (i == 0 || workers[i].tree != workers[0].tree) {
+                size += workers[i].tree.size();
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,213 @@
+package nl.tue.s2id90.group50.own_bots;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import nl.tue.s2id90.group50.engine.MoveList;
+import nl.tue.s2id90.group50.engine.Position;
+
+/**
+ * The tree of a Monte Carlo tree search, stored in a pool of primitive arrays instead of an object per node. A node is
+ * an index into the arrays; the root is node ROOT. When a node is expanded all its children are created at once, one
+ * for every move of the MoveGenerator in the order in which it generates them, in consecutive nodes. So a node only
+ * stores its first child and the number of children, and child i of a node belongs to move i of its position.
+ *
+ * <p>
+ * Every node keeps the move that leads to it, the number of playouts through it and the sum of their results, from
+ * the point of view of the player that made the move: RESULT_SCALE for a win, 0 for a loss.
+ * </p>
+ *
+ * <p>
+ * Several threads can search the same tree without locking. The counters are AtomicLongArrays. A thread claims the
+ * expansion of a node by setting its number of children from UNEXPANDED to EXPANDING, takes the nodes for the
+ * children from an atomic counter and publishes them by setting the number of children; other threads treat a node
+ * that is being expanded as a leaf.
+ * </p>
+ *
+ * <p>
+ * To keep the subtree of a move for the next search, reroot copies that subtree breadth first into a second set of
+ * arrays, which keeps the children of every node together, and swaps the two sets. The rest of the tree is discarded
+ * in the same step, so the pool never has to be searched for free nodes. Only clear and reroot must not run while
+ * threads search the tree.
+ * </p>
+ *
+ * @author Jeroen, Andreas
+ */
+final class MonteCarloTree {
+
+    static final int ROOT = 0;
+    /** number of children of a node that has not been expanded yet **/
+    static final int UNEXPANDED = -1;
+    /** number of children of a node of which a thread is creating the children **/
+    static final int EXPANDING = -2;
+    /** the result of a win in wins **/
+    static final long RESULT_SCALE = 1L << 20;
+
+    final int capacity; // maximum number of nodes
+
+    // the nodes; a second set of the same arrays is used by reroot
+    int[] move, spareMove;
+    long[] captured, spareCaptured;
+    int[] firstChild, spareFirstChild;
+    AtomicIntegerArray children, spareChildren; // number of children, UNEXPANDED for a leaf of the tree
+    AtomicLongArray visits, spareVisits;
+    AtomicLongArray wins, spareWins;
+
+    private final AtomicInteger next = new AtomicInteger(); // first free node
+
+    MonteCarloTree(int capacity) {
+        this.capacity = capacity;
+        move = new int[capacity];
+        spareMove = new int[capacity];
+        captured = new long[capacity];
+        spareCaptured = new long[capacity];
+        firstChild = new int[capacity];
+        spareFirstChild = new int[capacity];
+        children = new AtomicIntegerArray(capacity);
+        spareChildren = new AtomicIntegerArray(capacity);
+        visits = new AtomicLongArray(capacity);
+        spareVisits = new AtomicLongArray(capacity);
+        wins = new AtomicLongArray(capacity);
+        spareWins = new AtomicLongArray(capacity);
+        clear();
+    }
+
+    /**
+     * @return the number of nodes in use
+     */
+    int size() {
+        return Math.min(next.get(), capacity);
+    }
+
+    /**
+     * Removes all nodes but an unexpanded root.
+     */
+    void clear() {
+        move[ROOT] = 0;
+        captured[ROOT] = 0L;
+        children.set(ROOT, UNEXPANDED);
+        visits.set(ROOT, 0);
+        wins.set(ROOT, 0);
+        next.set(1);
+    }
+
+    /**
+     * Creates the children of node, one for every move in moves.
+     *
+     * @return false if another thread expands the node or the pool has no room for the children; the node then stays
+     * a leaf for now
+     */
+    boolean expand(int node, MoveList moves) {
+        int n = moves.size();
+        if (next.get() + n > capacity || !children.compareAndSet(node, UNEXPANDED, EXPANDING)) {
+            return false;
+        }
+        int first = n == 0 ? 0 : next.getAndAdd(n);
+        if (first + n > capacity) {
+            children.set(node, UNEXPANDED);
+            return false;
+        }
+        for (int i = 0; i < n; i++) {
+            int c = first + i;
+            move[c] = moves.move(i);
+            captured[c] = moves.captured(i);
+            children.set(c, UNEXPANDED);
+            visits.set(c, 0);
+            wins.set(c, 0);
+        }
+        firstChild[node] = first;
+        children.set(node, n); // publishes the children
+        return true;
+    }
+
+    /**
+     * @return the mean result of the playouts through node, between 0 and 1
+     */
+    double mean(int node) {
+        return wins.get(node) / (double) RESULT_SCALE / Math.max(1, visits.get(node));
+    }
+
+    /**
+     * Looks for the given position in the nodes at most the given number of plies below the root.
+     *
+     * @param root the position of the root
+     * @return the node of which the position equals target, or -1 if there is none
+     */
+    int find(Position root, Position target, int plies) {
+        return find(ROOT, new Position().copyFrom(root), target, plies);
+    }
+
+    private int find(int node, Position pos, Position target, int plies) {
+        if (pos.equals(target)) {
+            return node;
+        }
+        if (plies == 0 || children.get(node) <= 0) {
+            return -1;
+        }
+        for (int c = firstChild[node], end = c + children.get(node); c < end; c++) {
+            pos.make(move[c], captured[c]);
+            int found = find(c, pos, target, plies - 1);
+            pos.unmake();
+            if (found >= 0) {
+                return found;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Makes node the root, keeping its subtree and discarding all other nodes.
+     */
+    void reroot(int node) {
+        if (node == ROOT) {
+            return;
+        }
+        // breadth first, so the children of every node stay next to each other
+        int n = 1;
+        copy(node, ROOT);
+        spareMove[ROOT] = 0;
+        spareCaptured[ROOT] = 0L;
+        for (int i = 0; i < n; i++) {
+            int count = spareChildren.get(i);
+            if (count > 0) {
+                int first = spareFirstChild[i]; // still the index in the old arrays
+                spareFirstChild[i] = n;
+                for (int c = 0; c < count; c++) {
+                    copy(first + c, n++);
+                }
+            }
+        }
+
+        int[] ints = move;
+        move = spareMove;
+        spareMove = ints;
+        long[] longs = captured;
+        captured = spareCaptured;
+        spareCaptured = longs;
+        ints = firstChild;
+        firstChild = spareFirstChild;
+        spareFirstChild = ints;
+        AtomicIntegerArray atomicInts = children;
+        children = spareChildren;
+        spareChildren = atomicInts;
+        AtomicLongArray atomicLongs = visits;
+        visits = spareVisits;
+        spareVisits = atomicLongs;
+        atomicLongs = wins;
+        wins = spareWins;
+        spareWins = atomicLongs;
+        next.set(n);
+    }
+
+    /**
+     * Copies node from into node to of the spare arrays.
+     */
+    private void copy(int from, int to) {
+        spareMove[to] = move[from];
+        spareCaptured[to] = captured[from];
+        spareFirstChild[to] = firstChild[from];
+        spareChildren.set(to, children.get(from));
+        spareVisits.set(to, visits.get(from));
+        spareWins.set(to, wins.get(from));
+    }
+}
@@ -0,0 +1,141 @@
+package nl.tue.s2id90.group50.own_bots;
+
+import nl.tue.s2id90.group50.engine.MoveList;
+import nl.tue.s2id90.group50.engine.Position;
+
+/**
+ * Staged move ordering for one Search. The moves are searched in the stages
+ * <ol>
+ * <li>the hash move, or the best root move of the previous iteration,</li>
+ * <li>captures, the ones that take the most kings first,</li>
+ * <li>the two killer moves of the ply, quiet moves that caused a cutoff in a sibling position,</li>
+ * <li>all other quiet moves, by their butterfly history score.</li>
+ * </ol>
+ * The hash move is searched without looking at the other moves. After that all moves get a score that puts them in
+ * their stage, and next(i) only looks for the best of the moves that were not searched yet, so after a cutoff on one
+ * of the first moves the rest of the list is never sorted.
+ *
+ * <p>
+ * The history table is indexed by the from and to square of a move. It is halved before every iteration, so the
+ * cutoffs of the current iteration count more than the old ones.
+ * </p>
+ *
+ * @author Jeroen, Andreas
+ */
+final class MoveOrdering {
+
+    private static final int CAPTURE = 1 << 29;
+    private static final int KILLER = 1 << 28;
+    /** history scores are halved when one of them reaches this, so they stay below the killers **/
+    private static final int MAX_HISTORY = 1 << 24;
+
+    private final int[][] killers = new int[Position.MAX_PLY][2];
+    private final int[] history = new int[Position.SQUARES * Position.SQUARES];
+    private final int[][] scores = new int[Position.MAX_PLY][]; // scores of the moves, indexed by ply
+    private final boolean[] hasFirst = new boolean[Position.MAX_PLY]; // whether move 0 is the hash move
+    private final boolean[] scored = new boolean[Position.MAX_PLY];
+
+    /**
+     * Forgets the killer moves, which belong to the positions of the previous search. The history is kept.
+     */
+    void clearKillers() {
+        for (int[] k : killers) {
+            k[0] = k[1] = 0;
+        }
+    }
+
+    /**
+     * Halves the history scores, called before every iteration.
+     */
+    void age() {
+        for (int i = 0; i < history.length; i++) {
+            history[i] >>= 1;
+        }
+    }
+
+    /**
+     * Prepares the ordering of the moves of the position at the given ply. The moves are only scored when the first
+     * move did not cause a cutoff.
+     *
+     * @param first index of the move that has to be searched first, -1 if there is none
+     */
+    void start(int ply, MoveList moves, int first) {
+        if (first > 0) {
+            moves.swap(0, first);
+        }
+        hasFirst[ply] = first >= 0;
+        scored[ply] = false;
+    }
+
+    /**
+     * Moves the best of the moves i, i + 1, ... to index i.
+     *
+     * @param kings the kings on the board, to order the captures
+     */
+    void next(int ply, MoveList moves, int i, long kings) {
+        if (i == 0 && hasFirst[ply]) {
+            return;
+        }
+        if (!scored[ply]) {
+            score(ply, moves, i, kings);
+        }
+        int[] s = scores[ply];
+        int best = i;
+        for (int j = i + 1; j < moves.size(); j++) {
+            if (s[j] > s[best]) {
+                best = j;
+            }
+        }
+        if (best != i) {
+            moves.swap(i, best);
+            int t = s[i];
+            s[i] = s[best];
+            s[best] = t;
+        }
+    }
+
+    /**
+     * Scores the moves from index i on.
+     */
+    private void score(int ply, MoveList moves, int i, long kings) {
+        int[] s = scores[ply];
+        if (s == null) {
+            s = scores[ply] = new int[MoveList.CAPACITY];
+        }
+        int[] k = killers[ply];
+        for (; i < moves.size(); i++) {
+            int move = moves.move(i);
+            if (MoveList.isCapture(move)) {
+                s[i] = CAPTURE + Long.bitCount(moves.captured(i) & kings);
+            } else if (move == k[0]) {
+                s[i] = KILLER + 1;
+            } else if (move == k[1]) {
+                s[i] = KILLER;
+            } else {
+                s[i] = history[MoveList.from(move) * Position.SQUARES + MoveList.to(move)];
+            }
+        }
+        scored[ply] = true;
+    }
+
+    /**
+     * Records that the given move caused a cutoff at the given ply with the given remaining depth.
+     */
+    void cutoff(int ply, int move, int depth) {
+        if (MoveList.isCapture(move)) {
+            return; // captures are forced, they say nothing about the other positions
+        }
+        int[] k = killers[ply];
+        if (k[0] != move) {
+            k[1] = k[0];
+            k[0] = move;
+        }
+        if (depth > 0) {
+            int i = MoveList.from(move) * Position.SQUARES + MoveList.to(move);
+            history[i] += depth * depth;
+            if (history[i] >= MAX_HISTORY) {
+                age();
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package nl.tue.s2id90.group50.own_bots;
+
+import nl.tue.s2id90.group50.engine.Position;
+
+/**
+ * The evaluation of GammaBot and NewAndImproved on bitboards. Every man is worth more the closer it is to the middle
+ * rows and columns, and when other men of its colour protect it: the men diagonally next to it and two rows above or
+ * below it, counted more the further the man has advanced. After that the spread of the white pieces over the left
+ * (columns 0-2), middle (3-6) and right (7-9) part of the board is compared with the spread of the black men.
+ *
+ * <p>
+ * All terms of a man only depend on its square, so they are computed once for every square: the row and column value
+ * in MAN, the squares that protect it in NEIGHBOURS and the factor of the protection in WHITE_FACTOR and
+ * BLACK_FACTOR. The evaluation loops over the men and counts their neighbours with a bit count.
+ * </p>
+ *
+ * @author Jeroen, Andreas
+ */
+final class NeighbourhoodEvaluation {
+
+    static final int PIECE_VALUE = 10000;
+    /** value of a man that has other men of its colour around it, per neighbour and unit of the factor **/
+    static final int NEIGHBOURHOOD_VALUE = 2;
+
+    /** value of a man on a square for its distance to the edges of the board **/
+    private static final int[] MAN = new int[Position.SQUARES];
+    /** the squares that protect a man on a square **/
+    private static final long[] NEIGHBOURS = new long[Position.SQUARES];
+    /** ceil(exp(advance - 4.5)), the weight of the neighbours of a white and a black man on a square **/
+    private static final int[] WHITE_FACTOR = new int[Position.SQUARES];
+    private static final int[] BLACK_FACTOR = new int[Position.SQUARES];
+
+    // the three parts of the board
+    private static final long LEFT, MIDDLE, RIGHT;
+
+    static {
+        long left = 0, middle = 0, right = 0;
+        for (int s = 0; s < Position.SQUARES; s++) {
+            int row = Position.ROW[s], col = Position.COL[s];
+            // ceil(|(|x - 4.5|) - 4.5|) of the original is the distance to the nearest edge
+            MAN[s] = Math.min(row, 9 - row) + Math.min(col, 9 - col);
+            WHITE_FACTOR[s] = (int) Math.ceil(Math.exp((9 - row) - 4.5));
+            BLACK_FACTOR[s] = (int) Math.ceil(Math.exp(row - 4.5));
+
+            long neighbours = 0;
+            for (int i = -2; i <= 2; i++) {
+                for (int j = i % 2 == 0 ? 0 : -1; j <= 1; j += 2) {
+                    int r = row + i, c = col + j;
+                    if (r >= 0 && r <= 9 && c >= 0 && c <= 9 && !(i == 0 && j == 0)) {
+                        neighbours |= 1L << Position.square(r, c);
+                    }
+                }
+            }
+            NEIGHBOURS[s] = neighbours;
+
+            if (col <= 2) {
+                left |= 1L << s;
+            } else if (col <= 6) {
+                middle |= 1L << s;
+            } else {
+                right |= 1L << s;
+            }
+        }
+        LEFT = left;
+        MIDDLE = middle;
+        RIGHT = right;
+    }
+
+    private NeighbourhoodEvaluation() {
+    }
+
+    /**
+     * @param kingValue value of a king
+     * @return the value of the given pieces, positive values are good for white
+     */
+    static int evaluate(long whiteMen, long blackMen, long whiteKings, long blackKings, int kingValue) {
+        int value = (Long.bitCount(whiteMen) - Long.bitCount(blackMen)) * PIECE_VALUE
+                + (Long.bitCount(whiteKings) - Long.bitCount(blackKings)) * kingValue;
+
+        for (long m = whiteMen; m != 0; m &= m - 1) {
+            int s = Long.numberOfTrailingZeros(m);
+            value += MAN[s] + Long.bitCount(NEIGHBOURS[s] & whiteMen) * WHITE_FACTOR[s] * NEIGHBOURHOOD_VALUE;
+        }
+        for (long m = blackMen; m != 0; m &= m - 1) {
+            int s = Long.numberOfTrailingZeros(m);
+            value -= MAN[s] + Long.bitCount(NEIGHBOURS[s] & blackMen) * BLACK_FACTOR[s] * NEIGHBOURHOOD_VALUE;
+        }
+
+        // the distribution of the white men, compared with a third of all white pieces
+        int white = Long.bitCount(whiteMen) + Long.bitCount(whiteKings);
+        int low = white / 3, high = (white + 2) / 3;
+        int w0 = Long.bitCount(whiteMen & LEFT);
+        int w1 = Long.bitCount(whiteMen & MIDDLE);
+        int w2 = Long.bitCount(whiteMen & RIGHT);
+        int check = 0;
+        if (w0 == low || w0 == high) {
+            value += 10;
+            check++;
+        }
+        if (w1 == low || w1 == high) {
+            value += 15;
+            check++;
+        }
+        if (w2 == low || w2 == high) {
+            value += 10;
+            check++;
+        }
+        // award uniform distribution on the board
+        if (check == 3) {
+            value += 20;
+        }
+        // award better distribution than the opponent
+        value += w0 > Long.bitCount(blackMen & LEFT) ? 20 : -20;
+        value += w1 > Long.bitCount(blackMen & MIDDLE) ? 25 : -25;
+        value += w2 > Long.bitCount(blackMen & RIGHT) ? 20 : -20;
+        return value;
+    }
+}
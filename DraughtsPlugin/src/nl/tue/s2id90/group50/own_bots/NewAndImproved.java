@@ -28,24 +28,42 @@ public class NewAndImproved extends DraughtsPlayer {
     /**
      * boolean that indicates that the GUI asked the player to stop thinking.
      */
-    private boolean stopped;
+    private volatile boolean stopped;
+
+    private final SearchLimits limits = new SearchLimits(); // fixed depth and number of nodes, for benchmarks
 
     public NewAndImproved() {
         super("wow.jpg");
     }
 
+    /**
+     * Sets the fixed search depth; 0 searches until the player is stopped.
+     */
+    public void setDepth(int depth) {
+        limits.setDepth(depth);
+    }
+
+    /**
+     * Sets the fixed number of nodes per move; 0 for no limit.
+     */
+    public void setNodes(long nodes) {
+        limits.setNodes(nodes);
+    }
+
     @Override
     public Move getMove(DraughtsState s) {
         Move bestMove = null;
         bestValue = 0;
         int depth = 0;
         visitedStates = 0;
+        stopped = false; // a stop that arrived after the previous move was returned
         DraughtsNode node = new DraughtsNode(s);    // the root of the search tree
 
         try {
-            while (!stopped && depth < MAXSEARCHDEPTH) {
+            while (!stopped && depth < MAXSEARCHDEPTH && limits.deeper(depth)) {
                 // implements iterative deepening up till MAXSEARCHDEPTH
                 depth++;
+                limits.startIteration(depth);
               
                 // compute bestMove and bestValue in a call to alphabeta
                 bestValue = alphaBeta(node, MIN_VALUE, MAX_VALUE, depth);
@@ -129,9 +147,8 @@ public class NewAndImproved extends DraughtsPlayer {
     
     int alphaBeta(DraughtsNode node, int alpha, int beta, int depth) throws AIStoppedException {
         boolean quiet = true;
-        if (stopped) { // stops the player when timeLimit is reached
-            stopped = false;
-            throw new AIStoppedException();
+        if (stopped || limits.nodeLimitReached(visitedStates)) { // stopped by the GUI or at the node limit
+            throw AIStoppedException.INSTANCE;
         }
         visitedStates++;
         DraughtsState state = node.getState();
@@ -198,168 +215,32 @@ public class NewAndImproved extends DraughtsPlayer {
     }
 
     /**
-     * A method that evaluates the given state.
+     * A method that evaluates the given state, see NeighbourhoodEvaluation.
      */
     int evaluate(DraughtsState state) {
-        //sets the value of the piece
-        int value_piece = 10000;
-        int value_king = value_piece*5;
-        
-        boolean king = false;
-        boolean skip = false;
-        int value = 0;
-        int white_tile_correction;
-        int colour = 0;
-        int piece = 0;
-        
-        // n_white = number of white pieces
-        // the w_distribution or the b_distribution hold the number of white or black pieces at the left of the board [0] centre [1] and right side [2].
-        int n_white = 0;
-        int[] w_distribution = new int[3];
-        w_distribution[0] = 0;  w_distribution[1] = 0;  w_distribution[2] = 0;
-        int[] b_distribution = new int[3];
-        b_distribution[0] = 0;  b_distribution[1] = 0;  b_distribution[2] = 0;
-        
-        //Goes over the board, only checking black squares.
-        for (int row = 0; row < 10; row++) {
-            white_tile_correction = ((row % 2) == 0) ? 1 : 0; //skips a square if the row is even.
-            for (int col = 0 + white_tile_correction; col < 10; col+=2){
-                piece = state.getPiece(row, col);
-                skip = false;
-                //Add piece or king value and count the pieces.
-                switch (piece) {
-                    case 1:
-                        value+= value_piece;
-                        colour = 1;
-                        king = false;
-                        n_white++;
-                        break;
-                    case 2:
-                        value-= value_piece;
-                        colour = -1;
-                        king = false;
-//                        n_black++;
-                        break;
-                    case 3:
-                        value += value_king;
-                        colour = 1;
-                        king = true;
-                        n_white++;
-                        break;
-                    case 4:
-                        value -= value_king;
-                        colour = -1;
-                        king = true;
-//                        n_black++;
-                        break;
-                    case 0:
-                        skip = true;
-                        break;
-                    default:
-                        skip = true;
-                        break;
-                }
-                //If it is not a king, who can move around, and it is not an empty tile
-                //  assign value for its positioning on the board
-                if (!king && !skip){
-                    //Value for how far it is on the board. Now a guassian-like distribution
-                    int row_value;
-                    if (colour == 1) {
-                      row_value = Math.abs(row-9);
-                    }else {
-                        row_value = row;
-                    }
-                    value += Math.ceil(Math.abs(Math.abs(row_value-4.5)-4.5))*colour;;
-                    
-                    //Value for how centered the pieces are on the board
-                    value += Math.ceil(Math.abs(Math.abs(col-4.5)-4.5))*colour;
-                    //Assign distribution on the 3 sides of the board
-                    if (colour == 1){
-                        if (col >= 0 && col <= 2){
-                            w_distribution[0] ++;
-                        }else if (col >=3 && col <= 6) {
-                            w_distribution[1] ++;
-                        }else {
-                            w_distribution[2] ++;
-                        }
-                    } 
-                    if (colour == -1){
-                        if (col >= 0 && col <= 2){
-                            b_distribution[0] ++;
-                        }else if (col >=3 && col <= 6) {
-                            b_distribution[1] ++;
-                        }else {
-                            b_distribution[2] ++;
-                        }
-                    } 
-                    
-                    //Check if pieces are grouped together (better defense)
-                    int neighbourhood_val = check_neighbourhood(row, col, state, colour);
-                    int neighbourhood_value = 2;
-                    value += neighbourhood_val*colour * neighbourhood_value;
-                }
-            }
-        }
-        int dist_val = 0;
-        int check = 0;
-        //Check for how distributed the white pieces are.
-        if (w_distribution[0] == Math.ceil(n_white/3.0) || w_distribution[0] == Math.floor(n_white/3.0)) {
-            dist_val+= 10;
-            check++;
-        }
-        if (w_distribution[1] == Math.ceil(n_white/3.0) || w_distribution[1] == Math.floor(n_white/3.0)) {
-            dist_val+= 15;
-            check++;
-        }
-        if (w_distribution[2] == Math.ceil(n_white/3.0) || w_distribution[2] == Math.floor(n_white/3.0)) {
-            dist_val+= 10;
-            check++;
-        }
-        value+= dist_val;
-        //Award  uniform distribution on the board
-        if (check == 3) {
-            value+=20;
-        }
-        //Award better distribution than opponent
-        value+= (w_distribution[0] > b_distribution[0]) ? 20 : -20;
-        value+= (w_distribution[1] > b_distribution[1]) ? 25 : -25;
-        value+= (w_distribution[2] > b_distribution[2]) ? 20 : -20;
-
-        return value;
-    }
-  
-    
-    int check_neighbourhood(int row, int col, DraughtsState state, int colour){
-        int val = 0;
-        int piece;
-        int tile_correction;
-        int row_value = 0;
-        if (colour == 1) {
-            row_value += Math.abs(row-9);
-        }else {
-            row_value = row;
-        }
-        //Check neighbourhood in a collumn like manner
-        for (int i = -2; i <= 2; i++){
-            tile_correction = ((Math.abs(i) % 2) == 0) ? 1 : 0;
-            for (int j = -1 + tile_correction; j <= 1; j+=2){
-                if (row + i >= 0 && col+j >= 0 && row + i <= 9 && col+j <= 9 && !(i== 0 & j== 0)){
-                    piece = state.getPiece(row+i, col+j);
-                    if (piece != 0){
-                        if (colour == 1 && (piece == 1 /*| piece == 3*/)){
-                            val++;
-                        }else if (colour == -1 && (piece == 2 /*|| piece == 4*/)){
-                            val++;
-                        }
-                    }
-                }
+        int[] pieces = state.getPieces();
+        long whiteMen = 0, blackMen = 0, whiteKings = 0, blackKings = 0;
+        for (int s = 0; s < 50; s++) {
+            long bit = 1L << s;
+            switch (pieces[s + 1]) {
+                case 1:
+                    whiteMen |= bit;
+                    break;
+                case 2:
+                    blackMen |= bit;
+                    break;
+                case 3:
+                    whiteKings |= bit;
+                    break;
+                case 4:
+                    blackKings |= bit;
+                    break;
             }
         }
-        //award protecting pieces furter up in the board.
-        val *= Math.ceil(Math.exp(row_value-4.5));
-        return val;
+        return NeighbourhoodEvaluation.evaluate(whiteMen, blackMen, whiteKings, blackKings,
+                5 * NeighbourhoodEvaluation.PIECE_VALUE);
     }
-    
+
     int[] num_white_black(DraughtsState state){
         int[] pieces = state.getPieces();
         int n[] = new int[2];
@@ -8,11 +8,16 @@ import nl.tue.s2id90.draughts.DraughtsState;
 import nl.tue.s2id90.draughts.player.DraughtsPlayer;
 import nl.tue.s2id90.group50.AIStoppedException;
 import nl.tue.s2id90.group50.DraughtsNode;
+import nl.tue.s2id90.group50.engine.Playouts;
+import nl.tue.s2id90.group50.engine.Position;
 import org10x10.dam.game.DamConstants;
 import org10x10.dam.game.Move;
 
 /**
- * Implementation of the basic required player.
+ * Implementation of the basic required player, that evaluates the leaves of its search with Monte Carlo playouts:
+ * the average evaluation of RANDOMSEARCHTRIES random games of RANDOMSEARCHDEPTH plies. The playouts run on a bitboard
+ * copy of the leaf, see Playouts, and are split over the threads set with setThreads or the system property
+ * group50.threads.
  *
  * @author Jeroen, Andreas
  */
@@ -20,7 +25,8 @@ public class RandomizedAlphaBeta extends DraughtsPlayer implements DamConstants
     
     private final static int MAXSEARCHDEPTH = 200;
     private final static int RANDOMSEARCHDEPTH = 3;
-    private final static int RANDOMSEARCHTRIES = 10;
+    private final static int RANDOMSEARCHTRIES = 100;
+    private final static long RANDOMSEED = 2018; // seed of the playouts, so a search can be repeated
 
     private int bestValue = 0;
     private int visitedStates; // measure for states checked
@@ -28,24 +34,64 @@ public class RandomizedAlphaBeta extends DraughtsPlayer implements DamConstants
     /**
      * boolean that indicates that the GUI asked the player to stop thinking.
      */
-    private boolean stopped;
+    private volatile boolean stopped;
+
+    private final SearchLimits limits = new SearchLimits(); // fixed depth and number of nodes, for benchmarks
+
+    /**
+     * number of threads that run the playouts, set with setThreads or the system property group50.threads.
+     */
+    private int threads = Math.max(1, Integer.getInteger("group50.threads", 1));
+    private Playouts playouts; // created by getMove
+    private final Position leaf = new Position(); // the leaf of which the playouts are run
 
     public RandomizedAlphaBeta() {
         super("Layers.png");
     }
 
+    /**
+     * Sets the number of threads that run the playouts; 1 runs them on the searching thread only.
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Sets the fixed search depth; 0 searches until the player is stopped.
+     */
+    public void setDepth(int depth) {
+        limits.setDepth(depth);
+    }
+
+    /**
+     * Sets the fixed number of nodes per move; 0 for no limit.
+     */
+    public void setNodes(long nodes) {
+        limits.setNodes(nodes);
+    }
+
     @Override
     public Move getMove(DraughtsState s) {
         Move bestMove = null;
         bestValue = 0;
         int depth = 0;
         visitedStates = 0;
+        stopped = false; // a stop that arrived after the previous move was returned
         DraughtsNode node = new DraughtsNode(s);    // the root of the search tree
+        if (playouts == null || playouts.threads() != threads) {
+            if (playouts != null) {
+                playouts.shutdown();
+            }
+            playouts = new Playouts(threads, RANDOMSEED, RandomizedAlphaBeta::evaluate);
+        }
+        playouts.resetCounters();
+        long startTime = System.nanoTime();
 
         try {
-            while (!stopped && depth < MAXSEARCHDEPTH) {
+            while (!stopped && depth < MAXSEARCHDEPTH && limits.deeper(depth)) {
                 // implements iterative deepening up till MAXSEARCHDEPTH
                 depth++;
+                limits.startIteration(depth);
 
                 // compute bestMove and bestValue in a call to alphabeta
                 bestValue = alphaBeta(node, MIN_VALUE, MAX_VALUE, depth);
@@ -55,6 +101,7 @@ public class RandomizedAlphaBeta extends DraughtsPlayer implements DamConstants
                 bestMove = node.getBestMove();
             }
         } catch (AIStoppedException ex) { /* nothing to do */ }
+        long time = Math.max(1, System.nanoTime() - startTime);
 
         if (bestMove == null) {
             // When no best move is set, return a random valid move
@@ -63,8 +110,10 @@ public class RandomizedAlphaBeta extends DraughtsPlayer implements DamConstants
         } else {
             // print the results for debugging reasons
             System.err.format(
-                    "%s: depth = %2d, best move = %5s, value = %d\n, discovered = %8d,",
-                    this.getClass().getSimpleName(), depth, bestMove, bestValue, visitedStates
+                    "%s: depth = %2d, best move = %5s, value = %d\n, discovered = %8d, playouts = %d (%d threads)"
+                    + ", playouts/s = %d\n",
+                    this.getClass().getSimpleName(), depth, bestMove, bestValue, visitedStates, playouts.playouts(),
+                    threads, playouts.playouts() * 1000000000L / time
             );
             return bestMove;
         }
@@ -111,9 +160,8 @@ public class RandomizedAlphaBeta extends DraughtsPlayer implements DamConstants
      *
      */
     int alphaBeta(DraughtsNode node, int alpha, int beta, int depth) throws AIStoppedException {
-        if (stopped) { // stops the player when timeLimit is reached
-            stopped = false;
-            throw new AIStoppedException();
+        if (stopped || limits.nodeLimitReached(visitedStates)) { // stopped by the GUI or at the node limit
+            throw AIStoppedException.INSTANCE;
         }
 
         visitedStates++;
@@ -144,7 +192,7 @@ public class RandomizedAlphaBeta extends DraughtsPlayer implements DamConstants
      * <ul> <li><code>DraughtsState state = node.getState()</code>.</li>
      * <li><code> state.doMove(move); .... ; state.undoMove(move);</code></li>
      * <li><code>node.setBestMove(bestMove);</code></li>
-     * <li><code>if(stopped) { stopped=false; throw new AIStoppedException(); }</code></li>
+     * <li><code>if(stopped) { throw AIStoppedException.INSTANCE; }</code></li>
      * </ul>
      * </p>
      *
@@ -226,27 +274,23 @@ public class RandomizedAlphaBeta extends DraughtsPlayer implements DamConstants
         return value;
     }
 
+    /**
+     * The evaluation of evaluate(DraughtsState) on a bitboard position, for the final positions of the playouts.
+     */
+    static int evaluate(Position pos) {
+        return 100 * (Long.bitCount(pos.whiteMen()) - Long.bitCount(pos.blackMen()))
+                + 500 * (Long.bitCount(pos.whiteKings()) - Long.bitCount(pos.blackKings()));
+    }
+
+    /**
+     * @return the average evaluation of RANDOMSEARCHTRIES random games of RANDOMSEARCHDEPTH plies from rootState
+     */
     private int randomPlay(DraughtsState rootState) throws AIStoppedException {
-        if (stopped) { // stops the player when timeLimit is reached
-            stopped = false;
-            throw new AIStoppedException();
+        if (stopped || limits.nodeLimitReached(visitedStates)) { // stopped by the GUI or at the node limit
+            throw AIStoppedException.INSTANCE;
         }
-        int value = 0;
-        DraughtsState state;    
-        for (int tryNum = 0; tryNum < RANDOMSEARCHTRIES; tryNum++) {
-            state = rootState.clone();
-            for (int depNum = 0; depNum < RANDOMSEARCHDEPTH; depNum++) {
-                List<Move> moves = state.getMoves();
-                if (moves.isEmpty()) {
-                    break;
-                } else {
-                    Collections.shuffle(moves);
-                    state.doMove(moves.get(0));
-                }
-            }
-            value += evaluate(state);
-        }    
-        return value / RANDOMSEARCHTRIES;
+        long sum = playouts.run(leaf.load(rootState), RANDOMSEARCHTRIES, RANDOMSEARCHDEPTH);
+        return (int) (sum / RANDOMSEARCHTRIES);
     }
     
 }
@@ -0,0 +1,446 @@
+package nl.tue.s2id90.group50.own_bots;
+
+import static java.lang.Integer.MAX_VALUE;
+import static java.lang.Integer.MIN_VALUE;
+import nl.tue.s2id90.group50.AIStoppedException;
+import nl.tue.s2id90.group50.engine.EndgameDatabase;
+import nl.tue.s2id90.group50.engine.EvaluationCache;
+import nl.tue.s2id90.group50.engine.MoveGenerator;
+import nl.tue.s2id90.group50.engine.MoveList;
+import nl.tue.s2id90.group50.engine.Position;
+import nl.tue.s2id90.group50.engine.TranspositionTable;
+import static nl.tue.s2id90.group50.engine.TranspositionTable.EXACT;
+import static nl.tue.s2id90.group50.engine.TranspositionTable.LOWER;
+import static nl.tue.s2id90.group50.engine.TranspositionTable.UPPER;
+
+/**
+ * The alphabeta search of an AlphaBetaPlayer on one thread. Every search owns its position, move lists and counters,
+ * and shares the transposition table and evaluation function of its player, so several searches can run on the same
+ * root position at once.
+ *
+ * @author Jeroen, Andreas
+ */
+class Search {
+
+    final AlphaBetaPlayer player;
+    final Position position = new Position(); // the position that is being searched
+    private final MoveList[] moveLists = new MoveList[Position.MAX_PLY]; // move buffers, indexed by ply
+    private final int[] bestMoves = new int[Position.MAX_PLY]; // index of the best move found, indexed by ply
+
+    // best root move of the last completed iteration, -1 if there is none
+    int rootMove = -1;
+    long rootCaptured;
+
+    long visitedStates; // measure for states checked
+    long sharedStates; // part of visitedStates added to the node count of the Young Brothers Wait search
+    long cutoffs, firstMoveCutoffs; // beta cutoffs, and how many of them were caused by the first move searched
+    long researches; // null window searches that had to be repeated with the full window
+    long quiescenceNodes; // positions visited by the quiescence search, not counted in visitedStates
+    long reductions, reducedResearches; // late move reductions, and how many of them had to be searched again
+    long pruned; // nodes cut off by futility, reverse futility or razoring
+    long evaluationHits, evaluationMisses; // lookups in the evaluation cache of the player
+
+    /** indices of the counters in the array filled by addCounters **/
+    static final int CUTOFFS = 0, FIRST_MOVE_CUTOFFS = 1, RESEARCHES = 2, QUIESCENCE_NODES = 3, REDUCTIONS = 4,
+            REDUCED_RESEARCHES = 5, PRUNED = 6, EVALUATION_HITS = 7, EVALUATION_MISSES = 8, COUNTERS = 9;
+
+    final MoveOrdering ordering = new MoveOrdering();
+
+    /**
+     * the stop flags are read once every STOP_CHECK_MASK + 1 nodes, which keeps the time between stop() and the end of
+     * the search well below a millisecond without a volatile read in every node.
+     */
+    static final int STOP_CHECK_MASK = 255;
+
+    /** maximum number of captures followed by the quiescence search **/
+    static final int QUIESCENCE_DEPTH = 16;
+
+    /**
+     * late move reductions: from the LMR_MOVES-th move on, quiet moves in nodes with at least LMR_DEPTH depth left are
+     * searched LMR_REDUCTION plies less deep.
+     */
+    static final int LMR_MOVES = 3, LMR_DEPTH = 3, LMR_REDUCTION = 1;
+    /** reverse futility pruning is used in nodes with at most this depth left **/
+    static final int REVERSE_FUTILITY_DEPTH = 2;
+
+    /**
+     * helper searches stop when this is set by the main search; all searches also stop when the player is stopped.
+     */
+    volatile boolean aborted;
+
+    /** split point of the Young Brothers Wait search this search is part of, null if none **/
+    YoungBrothersSearch.SplitPoint split;
+
+    Search(AlphaBetaPlayer player) {
+        this.player = player;
+    }
+
+    /**
+     * Prepares a new search from the given root position.
+     */
+    void reset(Position root) {
+        load(root);
+        resetCounters();
+        ordering.clearKillers();
+        aborted = false;
+    }
+
+    void resetCounters() {
+        visitedStates = sharedStates = 0;
+        cutoffs = firstMoveCutoffs = researches = quiescenceNodes = 0;
+        reductions = reducedResearches = pruned = 0;
+        evaluationHits = evaluationMisses = 0;
+    }
+
+    /**
+     * Adds the counters of this search, apart from visitedStates, to the given array of size COUNTERS.
+     */
+    void addCounters(long[] n) {
+        n[CUTOFFS] += cutoffs;
+        n[FIRST_MOVE_CUTOFFS] += firstMoveCutoffs;
+        n[RESEARCHES] += researches;
+        n[QUIESCENCE_NODES] += quiescenceNodes;
+        n[REDUCTIONS] += reductions;
+        n[REDUCED_RESEARCHES] += reducedResearches;
+        n[PRUNED] += pruned;
+        n[EVALUATION_HITS] += evaluationHits;
+        n[EVALUATION_MISSES] += evaluationMisses;
+    }
+
+    /**
+     * Called before every iteration of iterative deepening.
+     */
+    void newIteration() {
+        ordering.age();
+    }
+
+    /**
+     * Continues counting with a new position to search.
+     */
+    void load(Position pos) {
+        position.copyFrom(pos);
+        rootMove = -1;
+    }
+
+    /**
+     * Implementation of alphabeta on position that automatically chooses the white player as maximizing player and
+     * the black player as minimizing player.
+     *
+     * @param ply number of moves made since the root
+     * @param alpha
+     * @param beta
+     * @param depth maximum recursion depth from current position
+     * @return the computed value of the current position
+     * @throws AIStoppedException
+     */
+    int alphaBeta(int ply, int alpha, int beta, int depth) throws AIStoppedException {
+        if ((visitedStates & STOP_CHECK_MASK) == 0 && stopRequested()) { // stops the player when timeLimit is reached
+            throw AIStoppedException.INSTANCE;
+        }
+
+        visitedStates++;
+
+        EndgameDatabase endgame = player.endgame;
+        if (endgame != null && ply > 0) {
+            // an exact value, whatever the depth
+            int value = endgame.probe(position);
+            if (value != EndgameDatabase.MISSING) {
+                return player.endgameScore(position, value);
+            }
+        }
+
+        if (depth < 0) {
+            return player.quiescenceSearch() ? quiescence(ply, alpha, beta, 0) : evaluate();
+        }
+
+        TranspositionTable tt = player.tt;
+        long key = 0L;
+        int hashMove = 0;
+        if (tt != null) {
+            key = position.hash();
+            long entry = tt.probe(key);
+            if (entry != 0L) {
+                hashMove = TranspositionTable.move(entry);
+                if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                    int score = TranspositionTable.score(entry);
+                    switch (TranspositionTable.bound(entry)) {
+                        case EXACT:
+                            return score;
+                        case LOWER:
+                            if (score >= beta) {
+                                return score;
+                            }
+                            break;
+                        case UPPER:
+                            if (score <= alpha) {
+                                return score;
+                            }
+                            break;
+                    }
+                }
+            }
+        }
+
+        // selective search in null window nodes close to the leaves, where the evaluation is a good guess of the value
+        boolean max = position.isWhiteToMove();
+        boolean selective = ply > 0 && beta - alpha == 1 && depth <= REVERSE_FUTILITY_DEPTH
+                && (player.razorMargin() > 0 || player.reverseFutilityMargin() > 0 || player.futilityMargin() > 0);
+        int eval = selective ? evaluate() : 0;
+        int margin = player.razorMargin();
+        if (selective && depth == 1 && margin > 0 && (max ? eval + margin <= alpha : eval - margin >= beta)) {
+            // razoring: far behind two plies above the leaves, verified by a search that is one ply shorter
+            int value = alphaBeta(ply, alpha, beta, depth - 1);
+            if (max ? value <= alpha : value >= beta) {
+                pruned++;
+                return value;
+            }
+        }
+
+        MoveList moves = moves(ply);
+        if (MoveGenerator.generate(position, moves) == 0) { // end state
+            return evaluate();
+        }
+
+        if (selective && !MoveList.isCapture(moves.move(0))) {
+            margin = player.reverseFutilityMargin() * (depth + 1);
+            if (margin > 0 && (max ? eval - margin >= beta : eval + margin <= alpha)) {
+                // reverse futility: so far ahead that the opponent will not get back into the window
+                pruned++;
+                return max ? eval - margin : eval + margin;
+            }
+            margin = player.futilityMargin();
+            if (depth == 0 && margin > 0 && (max ? eval + margin <= alpha : eval - margin >= beta)) {
+                // futility: so far behind at the last ply that no quiet move brings the value back into the window
+                pruned++;
+                return max ? eval + margin : eval - margin;
+            }
+        }
+
+        // search the most promising move first
+        int first = -1;
+        if (ply == 0 && player.previousBestFirst()) {
+            first = moves.indexOf(rootMove, rootCaptured);
+        } else if (hashMove != 0) {
+            first = moves.indexOf(hashMove);
+        }
+        ordering.start(ply, moves, first);
+
+        int value;
+        if (max) {
+            value = alphaBetaMax(ply, moves, alpha, beta, depth);
+        } else {
+            value = alphaBetaMin(ply, moves, alpha, beta, depth);
+        }
+
+        if (tt != null) {
+            int bound = value <= alpha ? UPPER : value >= beta ? LOWER : EXACT;
+            tt.store(key, depth, bound, value, moves.move(bestMoves[ply]));
+        }
+        return value;
+    }
+
+    /**
+     * @return the evaluation of the current position, from the evaluation cache of the player when it has one
+     */
+    private int evaluate() {
+        EvaluationCache cache = player.evaluationCache;
+        if (cache == null) {
+            return player.evaluate(position);
+        }
+        long key = position.hash();
+        long entry = cache.probe(key);
+        if (entry != 0L) {
+            evaluationHits++;
+            return EvaluationCache.score(entry);
+        }
+        evaluationMisses++;
+        int score = player.evaluate(position);
+        cache.store(key, score);
+        return score;
+    }
+
+    /**
+     * Quiescence search: follows only the capture sequences from a leaf of the main search, so the position that is
+     * evaluated is one in which the player to move can not capture. Capturing is compulsory, so a player that can
+     * capture can not stand pat; a player that can not capture stands pat with the evaluation of the position.
+     *
+     * @param ply number of moves made since the root
+     * @param qdepth number of moves made since the leaf of the main search, at most QUIESCENCE_DEPTH
+     * @return the value of the current position, fail soft
+     */
+    int quiescence(int ply, int alpha, int beta, int qdepth) {
+        quiescenceNodes++;
+        MoveList moves = moves(ply);
+        if (qdepth >= QUIESCENCE_DEPTH || MoveGenerator.generate(position, moves) == 0
+                || !MoveList.isCapture(moves.move(0))) {
+            return evaluate(); // stand pat
+        }
+        boolean max = position.isWhiteToMove();
+        int best = max ? MIN_VALUE : MAX_VALUE;
+        for (int i = 0; i < moves.size(); i++) {
+            position.make(moves, i);
+            int value = quiescence(ply + 1, alpha, beta, qdepth + 1);
+            position.unmake();
+            if (max ? value > best : value < best) {
+                best = value;
+                if (max ? best >= beta : best <= alpha) {
+                    return best;
+                }
+                if (max) {
+                    alpha = Math.max(alpha, best);
+                } else {
+                    beta = Math.min(beta, best);
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Does an alphabeta computation with the given alpha and beta where the player that is to move is the minimizing
+     * player. With principal variation search the moves after the first are only searched with a null window, which
+     * proves that they are not better than the best move so far, unless they are.
+     *
+     * @param ply number of moves made since the root
+     * @param moves the moves of the current position
+     * @param alpha
+     * @param beta
+     * @param depth maximum recursion Depth
+     * @return the compute value of this node; fail soft, so when it is outside the window it is a bound on the real
+     * value that can lie beyond alpha or beta
+     * @throws AIStoppedException thrown whenever the search has been stopped.
+     */
+    int alphaBetaMin(int ply, MoveList moves, int alpha, int beta, int depth) throws AIStoppedException {
+        int bestMove = 0;
+        int best = MAX_VALUE;
+        int foundBeta = 0;
+        boolean pvs = player.principalVariationSearch();
+        boolean lmr = player.lateMoveReductions() && beta - alpha == 1; // only in null window nodes
+        for (int i = 0; i < moves.size(); i++) {
+            ordering.next(ply, moves, i, position.kings());
+            position.make(moves, i);
+            boolean reduced = lmr && i >= LMR_MOVES && depth >= LMR_DEPTH && !MoveList.isCapture(moves.move(i));
+            if (reduced) {
+                // a late quiet move is first searched with less depth, and normally when it seems to be better
+                reductions++;
+                foundBeta = alphaBeta(ply + 1, beta - 1, beta, depth - 1 - LMR_REDUCTION);
+                if (foundBeta < beta) {
+                    reducedResearches++;
+                    reduced = false;
+                }
+            }
+            if (reduced) {
+                // the reduced search showed that the move is not better
+            } else if (i > 0 && pvs && beta - 1 > alpha) {
+                // null window scout, searched again with the full window when it does not fail high
+                foundBeta = alphaBeta(ply + 1, beta - 1, beta, depth - 1);
+                if (foundBeta < beta && foundBeta > alpha) {
+                    researches++;
+                    foundBeta = alphaBeta(ply + 1, alpha, beta, depth - 1);
+                }
+            } else {
+                foundBeta = alphaBeta(ply + 1, alpha, beta, depth - 1);
+            }
+            position.unmake();
+            if (foundBeta < best) {
+                bestMove = i;
+                best = foundBeta;
+                if (best <= alpha) {
+                    cutoff(ply, moves, i, depth);
+                    return best;
+                }
+                beta = Math.min(beta, best);
+            }
+        }
+        setBestMove(ply, moves, bestMove);
+        return best;
+    }
+
+    int alphaBetaMax(int ply, MoveList moves, int alpha, int beta, int depth) throws AIStoppedException {
+        int bestMove = 0;
+        int best = MIN_VALUE;
+        int foundAlpha = 0;
+        boolean pvs = player.principalVariationSearch();
+        boolean lmr = player.lateMoveReductions() && beta - alpha == 1; // only in null window nodes
+        for (int i = 0; i < moves.size(); i++) {
+            ordering.next(ply, moves, i, position.kings());
+            position.make(moves, i);
+            boolean reduced = lmr && i >= LMR_MOVES && depth >= LMR_DEPTH && !MoveList.isCapture(moves.move(i));
+            if (reduced) {
+                // a late quiet move is first searched with less depth, and normally when it seems to be better
+                reductions++;
+                foundAlpha = alphaBeta(ply + 1, alpha, alpha + 1, depth - 1 - LMR_REDUCTION);
+                if (foundAlpha > alpha) {
+                    reducedResearches++;
+                    reduced = false;
+                }
+            }
+            if (reduced) {
+                // the reduced search showed that the move is not better
+            } else if (i > 0 && pvs && alpha + 1 < beta) {
+                // null window scout, searched again with the full window when it does not fail low
+                foundAlpha = alphaBeta(ply + 1, alpha, alpha + 1, depth - 1);
+                if (foundAlpha > alpha && foundAlpha < beta) {
+                    researches++;
+                    foundAlpha = alphaBeta(ply + 1, alpha, beta, depth - 1);
+                }
+            } else {
+                foundAlpha = alphaBeta(ply + 1, alpha, beta, depth - 1);
+            }
+            position.unmake();
+            if (foundAlpha > best) {
+                bestMove = i;
+                best = foundAlpha;
+                if (best >= beta) {
+                    cutoff(ply, moves, i, depth);
+                    return best;
+                }
+                alpha = Math.max(alpha, best);
+            }
+        }
+        setBestMove(ply, moves, bestMove);
+        return best;
+    }
+
+    /**
+     * @return whether the player was stopped or ran out of time, the node limit of the player was reached, this search
+     * was aborted, or a brother of the subtree this search is part of caused a cutoff.
+     */
+    boolean stopRequested() {
+        return player.outOfTime() || player.nodeLimitReached(this) || aborted
+                || (split != null && split.cancelled());
+    }
+
+    /**
+     * Remembers that move i caused a cutoff.
+     */
+    private void cutoff(int ply, MoveList moves, int i, int depth) {
+        bestMoves[ply] = i;
+        cutoffs++;
+        if (i == 0) {
+            firstMoveCutoffs++;
+        }
+        ordering.cutoff(ply, moves.move(i), depth);
+    }
+
+    /**
+     * Remembers move i as the best move of the position at the given ply.
+     */
+    void setBestMove(int ply, MoveList moves, int i) {
+        bestMoves[ply] = i;
+        if (ply == 0) {
+            rootMove = moves.move(i);
+            rootCaptured = moves.captured(i);
+        }
+    }
+
+    /**
+     * @return the move buffer for the given ply
+     */
+    MoveList moves(int ply) {
+        if (moveLists[ply] == null) {
+            moveLists[ply] = new MoveList();
+        }
+        return moveLists[ply];
+    }
+}
@@ -0,0 +1,45 @@
+package nl.tue.s2id90.group50.own_bots;
+
+/**
+ * The fixed search depth and number of nodes per move of a bot with its own iterative deepening loop, for benchmarks;
+ * see AlphaBetaPlayer for their meaning. They are read from the system properties group50.depth and group50.nodes and
+ * can be changed with setDepth and setNodes of the bot.
+ *
+ * @author Jeroen, Andreas
+ */
+final class SearchLimits {
+
+    private int depth = Math.max(0, Integer.getInteger("group50.depth", 0)); // 0 for no limit
+    private long nodes = Math.max(0, Long.getLong("group50.nodes", 0L)); // 0 for no limit
+    private long nodeLimit = Long.MAX_VALUE; // number of visited states after which the search stops
+
+    void setDepth(int depth) {
+        this.depth = Math.max(0, depth);
+    }
+
+    void setNodes(long nodes) {
+        this.nodes = Math.max(0, nodes);
+    }
+
+    /**
+     * @return whether an iteration deeper than the given depth may start
+     */
+    boolean deeper(int depth) {
+        return this.depth == 0 || depth < this.depth;
+    }
+
+    /**
+     * Sets the node limit of the iteration of the given depth. The first iteration always completes, so there is a
+     * move to play.
+     */
+    void startIteration(int depth) {
+        nodeLimit = nodes > 0 && depth > 1 ? nodes : Long.MAX_VALUE;
+    }
+
+    /**
+     * @return whether the search has to stop after the given number of visited states
+     */
+    boolean nodeLimitReached(long visitedStates) {
+        return visitedStates >= nodeLimit;
+    }
+}
@@ -0,0 +1,357 @@
+package nl.tue.s2id90.group50.own_bots;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+import nl.tue.s2id90.group50.AIStoppedException;
+import nl.tue.s2id90.group50.engine.EndgameDatabase;
+import nl.tue.s2id90.group50.engine.MoveGenerator;
+import nl.tue.s2id90.group50.engine.MoveList;
+import nl.tue.s2id90.group50.engine.Position;
+import nl.tue.s2id90.group50.engine.TranspositionTable;
+import static nl.tue.s2id90.group50.engine.TranspositionTable.EXACT;
+import static nl.tue.s2id90.group50.engine.TranspositionTable.LOWER;
+import static nl.tue.s2id90.group50.engine.TranspositionTable.UPPER;
+
+/**
+ * Young Brothers Wait parallel alphabeta on a ForkJoinPool. In every node with enough depth left the first (eldest)
+ * move is searched sequentially; after that the remaining moves are forked as tasks with the window found by the
+ * eldest brother. When one of them causes a cutoff the node's split point is marked, and the siblings still in flight
+ * notice that and stop. Close to the leaves the tasks switch to the sequential Search of the worker thread.
+ *
+ * <p>
+ * A task only carries the pieces of its position. The thread that runs it loads them into a Position of its own, and
+ * the split nodes take their move lists from the same per-thread Frames, so apart from the small task objects the
+ * split nodes do not allocate anything either.
+ * </p>
+ *
+ * <p>
+ * With a fixed number of nodes per move all threads count towards the same limit: the split nodes and the states of
+ * the sequential searches, which add their states to a shared counter whenever they check whether to stop.
+ * </p>
+ *
+ * @author Jeroen, Andreas
+ */
+class YoungBrothersSearch {
+
+    /** nodes with less remaining depth are searched sequentially **/
+    static final int SPLIT_DEPTH = 3;
+
+    /**
+     * A node whose younger brothers are being searched in parallel. A split point is cancelled when it, or any of its
+     * ancestors, had a cutoff.
+     */
+    static final class SplitPoint {
+
+        final SplitPoint parent;
+        volatile boolean cutoff;
+
+        SplitPoint(SplitPoint parent) {
+            this.parent = parent;
+        }
+
+        boolean cancelled() {
+            for (SplitPoint sp = this; sp != null; sp = sp.parent) {
+                if (sp.cutoff) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The positions and move lists of the split nodes searched by one thread. A thread that waits for a brother runs
+     * other tasks in the mean time, on top of the one it waits in, so both are used as stacks: a task takes the next
+     * free entries and gives them back when it is done.
+     */
+    private static final class Frames {
+
+        Position[] positions = new Position[16];
+        MoveList[] moveLists = new MoveList[16];
+        int positionsUsed, moveListsUsed;
+
+        Position position() {
+            if (positionsUsed == positions.length) {
+                positions = Arrays.copyOf(positions, 2 * positionsUsed);
+            }
+            if (positions[positionsUsed] == null) {
+                positions[positionsUsed] = new Position();
+            }
+            return positions[positionsUsed++];
+        }
+
+        MoveList moveList() {
+            if (moveListsUsed == moveLists.length) {
+                moveLists = Arrays.copyOf(moveLists, 2 * moveListsUsed);
+            }
+            if (moveLists[moveListsUsed] == null) {
+                moveLists[moveListsUsed] = new MoveList();
+            }
+            return moveLists[moveListsUsed++];
+        }
+    }
+
+    private final AlphaBetaPlayer player;
+    final int threads;
+    private final ForkJoinPool pool;
+    private final List<Search> searches = new ArrayList<>(); // all sequential searches, for the node count
+    private final ThreadLocal<Search> local = ThreadLocal.withInitial(() -> {
+        Search s = new Search(YoungBrothersSearch.this.player);
+        synchronized (searches) {
+            searches.add(s);
+        }
+        return s;
+    });
+    private final ThreadLocal<Frames> frames = ThreadLocal.withInitial(Frames::new);
+    private int[][] table; // piece-square table of the root position
+    private final LongAdder splitNodes = new LongAdder();
+    private final LongAdder sharedStates = new LongAdder(); // states of the sequential searches, see nodeLimitReached
+
+    // moves of the root position and the index of the best one, valid after a completed search
+    final MoveList rootMoves = new MoveList();
+    int rootBest;
+
+    YoungBrothersSearch(AlphaBetaPlayer player, int threads) {
+        this.player = player;
+        this.threads = threads;
+        this.pool = new ForkJoinPool(threads, p -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            player.searchThreadStarted(t);
+            return t;
+        }, null, false);
+    }
+
+    /**
+     * Searches the given root position on the pool.
+     *
+     * @return the computed value of the root
+     * @throws AIStoppedException when the player was stopped before the search completed
+     */
+    int search(Position root, int alpha, int beta, int depth) throws AIStoppedException {
+        table = root.pieceSquareTable();
+        Node task = new Node(root, 0, alpha, beta, depth, new SplitPoint(null));
+        int value = pool.invoke(task);
+        if (task.aborted) {
+            throw AIStoppedException.INSTANCE;
+        }
+        return value;
+    }
+
+    /**
+     * @return the number of nodes visited by all threads since the last reset
+     */
+    long visitedStates() {
+        long n = splitNodes.sum();
+        synchronized (searches) {
+            for (Search s : searches) {
+                n += s.visitedStates;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Adds the counters of the sequential searches to the given array, see Search.addCounters.
+     */
+    void addCounters(long[] n) {
+        synchronized (searches) {
+            for (Search s : searches) {
+                s.addCounters(n);
+            }
+        }
+    }
+
+    /**
+     * Adds the states that search visited since its last call to the shared count.
+     *
+     * @param search the sequential search that checks the limit, or null for a split node
+     * @return whether all threads together reached the node limit of the player
+     */
+    boolean nodeLimitReached(Search search) {
+        if (search != null) {
+            sharedStates.add(search.visitedStates - search.sharedStates);
+            search.sharedStates = search.visitedStates;
+        }
+        return splitNodes.sum() + sharedStates.sum() >= player.nodeLimit;
+    }
+
+    void resetCounters() {
+        splitNodes.reset();
+        sharedStates.reset();
+        synchronized (searches) {
+            for (Search s : searches) {
+                s.resetCounters();
+            }
+        }
+    }
+
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * The search of one node, run as a fork/join task on a copy of the position in the Frames of its thread.
+     */
+    private final class Node extends RecursiveTask<Integer> {
+
+        final long white, black, kings;
+        final boolean whiteToMove;
+        final int ply, alpha, beta, depth;
+        final SplitPoint split; // split point of the parent
+        boolean aborted; // set when the search of this node was stopped
+
+        Node(Position pos, int ply, int alpha, int beta, int depth, SplitPoint split) {
+            this.white = pos.white();
+            this.black = pos.black();
+            this.kings = pos.kings();
+            this.whiteToMove = pos.isWhiteToMove();
+            this.ply = ply;
+            this.alpha = alpha;
+            this.beta = beta;
+            this.depth = depth;
+            this.split = split;
+        }
+
+        @Override
+        protected Integer compute() {
+            Frames f = frames.get();
+            int positionsUsed = f.positionsUsed, moveListsUsed = f.moveListsUsed;
+            Position pos = f.position();
+            if (pos.pieceSquareTable() != table) {
+                pos.setPieceSquareTable(table);
+            }
+            pos.set(white, black, kings, whiteToMove);
+            try {
+                return search(f, pos, ply, alpha, beta, depth, split);
+            } catch (AIStoppedException ex) {
+                aborted = true;
+                return 0;
+            } finally {
+                // also gives back the move lists of the split nodes on the path to the eldest brothers
+                f.positionsUsed = positionsUsed;
+                f.moveListsUsed = moveListsUsed;
+            }
+        }
+    }
+
+    private int search(Frames f, Position pos, int ply, int alpha, int beta, int depth, SplitPoint split)
+            throws AIStoppedException {
+        if (player.outOfTime() || nodeLimitReached(null) || split.cancelled()) {
+            throw AIStoppedException.INSTANCE;
+        }
+
+        if (depth < SPLIT_DEPTH && ply > 0) {
+            Search s = local.get();
+            s.load(pos);
+            s.split = split;
+            try {
+                return s.alphaBeta(1, alpha, beta, depth); // as a non-root node of the sequential search
+            } finally {
+                s.split = null;
+            }
+        }
+
+        splitNodes.increment();
+        EndgameDatabase endgame = player.endgame;
+        if (endgame != null && ply > 0) {
+            // an exact value, whatever the depth, as in the sequential search
+            int value = endgame.probe(pos);
+            if (value != EndgameDatabase.MISSING) {
+                return player.endgameScore(pos, value);
+            }
+        }
+
+        TranspositionTable tt = player.tt;
+        long key = pos.hash();
+        int hashMove = 0;
+        if (tt != null) {
+            long entry = tt.probe(key);
+            if (entry != 0L) {
+                hashMove = TranspositionTable.move(entry);
+                if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                    int score = TranspositionTable.score(entry);
+                    int bound = TranspositionTable.bound(entry);
+                    if (bound == EXACT) {
+                        return score;
+                    } else if (bound == LOWER && score >= beta) {
+                        return beta;
+                    } else if (bound == UPPER && score <= alpha) {
+                        return alpha;
+                    }
+                }
+            }
+        }
+
+        MoveList moves = ply == 0 ? rootMoves : f.moveList();
+        if (MoveGenerator.generate(pos, moves) == 0) { // end state
+            return player.evaluate(pos);
+        }
+        int first = hashMove != 0 ? moves.indexOf(hashMove) : -1;
+        if (first > 0) {
+            moves.swap(0, first);
+        }
+
+        boolean max = pos.isWhiteToMove();
+        int a = alpha, b = beta;
+        int best = 0;
+
+        // the eldest brother is searched first, on this thread
+        pos.make(moves, 0);
+        int value = search(f, pos, ply + 1, a, b, depth - 1, split);
+        pos.unmake();
+        if (max && value > a) {
+            a = value;
+        } else if (!max && value < b) {
+            b = value;
+        }
+
+        if (a < b && moves.size() > 1) {
+            // the younger brothers are searched in parallel with the window of the eldest
+            SplitPoint sp = new SplitPoint(split);
+            Node[] brothers = new Node[moves.size() - 1];
+            for (int i = 1; i < moves.size(); i++) {
+                pos.make(moves, i);
+                brothers[i - 1] = new Node(pos, ply + 1, a, b, depth - 1, sp);
+                pos.unmake();
+                brothers[i - 1].fork();
+            }
+            for (int i = brothers.length - 1; i >= 0; i--) {
+                Node brother = brothers[i];
+                value = brother.join();
+                if (a >= b) {
+                    continue; // a cutoff was already found, the remaining brothers are cancelled
+                }
+                if (brother.aborted) {
+                    // only a cutoff of this node, handled above, may cancel a brother without invalidating the node
+                    throw AIStoppedException.INSTANCE;
+                }
+                if (max && value > a) {
+                    a = value;
+                    best = i + 1;
+                } else if (!max && value < b) {
+                    b = value;
+                    best = i + 1;
+                }
+                if (a >= b) {
+                    sp.cutoff = true;
+                }
+            }
+        }
+
+        // fail hard, which is a valid, if less precise, result for the fail soft searches below and above
+        int result = max ? (a >= b ? beta : a) : (a >= b ? alpha : b);
+        if (ply == 0) {
+            rootBest = best;
+        }
+        if (tt != null) {
+            int bound = result <= alpha ? UPPER : result >= beta ? LOWER : EXACT;
+            tt.store(key, depth, bound, result, moves.move(best));
+        }
+        return result;
+    }
+}